@@ -0,0 +1,64 @@
+package com.lytspeed.orka.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncConfig.class);
+
+    /**
+     * Runs request change listeners that feed the SSE board. Single-threaded so
+     * changes are handed to the stream in commit order. Exposed as a
+     * {@link ThreadPoolTaskExecutor} so the request board can tell whether
+     * committed changes are still waiting to be applied.
+     *
+     * Declaring an executor would normally make Boot back off its own
+     * {@code applicationTaskExecutor}; {@code spring.task.execution.mode=force}
+     * keeps it for MVC async handling and unqualified {@code @Async}.
+     *
+     * If the queue is ever full, the change is applied on the committing thread
+     * instead of being dropped: a rejected broadcast would leave the board and
+     * every SSE client without it until the next consistency check.
+     */
+    @Bean
+    ThreadPoolTaskExecutor requestEventExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(10_000);
+        executor.setThreadNamePrefix("request-events-");
+        executor.setRejectedExecutionHandler((task, pool) -> {
+            if (pool.isShutdown()) {
+                log.warn("Request event executor is shut down; dropping a request change broadcast");
+                return;
+            }
+            log.warn("Request event queue is full ({} queued); broadcasting on the committing thread",
+                    pool.getQueue().size());
+            task.run();
+        });
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Streams request exports. Bounded so a burst of long exports cannot start an
+     * unbounded number of threads or drain the connection pool.
+     */
+    @Bean
+    ThreadPoolTaskExecutor exportTaskExecutor(OrkaExportProperties properties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(Math.max(1, properties.getMaxConcurrent()));
+        executor.setMaxPoolSize(Math.max(1, properties.getMaxConcurrent()));
+        executor.setQueueCapacity(Math.max(0, properties.getQueueCapacity()));
+        executor.setThreadNamePrefix("request-export-");
+        executor.initialize();
+        return executor;
+    }
+}
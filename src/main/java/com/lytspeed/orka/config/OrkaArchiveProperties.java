@@ -0,0 +1,64 @@
+package com.lytspeed.orka.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "orka.archive")
+public class OrkaArchiveProperties {
+
+    /** Whether the background job moves closed requests to the archive. */
+    private boolean enabled = true;
+
+    /** COMPLETED / CANCELLED requests closed longer ago than this are archived. */
+    private Duration closedAfter = Duration.ofDays(30);
+
+    /** Delay between archive runs. */
+    private Duration interval = Duration.ofMinutes(10);
+
+    /** Rows moved per transaction. */
+    private int batchSize = 500;
+
+    /** Upper bound on batches per run, so one run never monopolises the database. */
+    private int maxBatchesPerRun = 20;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Duration getClosedAfter() {
+        return closedAfter;
+    }
+
+    public void setClosedAfter(Duration closedAfter) {
+        this.closedAfter = closedAfter;
+    }
+
+    public Duration getInterval() {
+        return interval;
+    }
+
+    public void setInterval(Duration interval) {
+        this.interval = interval;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getMaxBatchesPerRun() {
+        return maxBatchesPerRun;
+    }
+
+    public void setMaxBatchesPerRun(int maxBatchesPerRun) {
+        this.maxBatchesPerRun = maxBatchesPerRun;
+    }
+}
@@ -0,0 +1,42 @@
+package com.lytspeed.orka.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "orka.export")
+public class OrkaExportProperties {
+
+    /** How long a streamed request export may run; other async requests keep the MVC default. */
+    private Duration timeout = Duration.ofMinutes(30);
+
+    /** Exports streamed at the same time; each holds a thread and a database connection. */
+    private int maxConcurrent = 4;
+
+    /** Exports waiting for a free slot; beyond this new exports are refused with 503. */
+    private int queueCapacity = 8;
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public void setMaxConcurrent(int maxConcurrent) {
+        this.maxConcurrent = maxConcurrent;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+}
@@ -0,0 +1,239 @@
+package com.lytspeed.orka.config;
+
+import com.lytspeed.orka.entity.enums.EmployeeRole;
+import com.lytspeed.orka.entity.enums.RequestType;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+@ConfigurationProperties(prefix = "orka.notifications")
+public class OrkaNotificationProperties {
+
+    /** Delay between outbox dispatcher runs. */
+    private Duration dispatchInterval = Duration.ofSeconds(2);
+
+    /** Outbox rows claimed per dispatcher round. */
+    private int batchSize = 100;
+
+    /** How long a claimed row is hidden from other dispatchers; it is retried after this if the claimer dies. */
+    private Duration lease = Duration.ofMinutes(2);
+
+    /** Delivery attempts before a row is parked as FAILED. */
+    private int maxAttempts = 8;
+
+    /** Delay before the first retry; doubles on every further attempt. */
+    private Duration initialBackoff = Duration.ofSeconds(5);
+
+    /** Upper bound on the retry delay. */
+    private Duration maxBackoff = Duration.ofMinutes(15);
+
+    /** How long rows parked as FAILED are kept before they are purged. */
+    private Duration failedRetention = Duration.ofDays(7);
+
+    /** Delay between purges of expired FAILED rows. */
+    private Duration failedPurgeInterval = Duration.ofHours(1);
+
+    /**
+     * How long a hotel's push recipient list is reused. Local user and token changes
+     * invalidate it immediately; this only bounds staleness from other instances.
+     */
+    private Duration recipientCacheTtl = Duration.ofMinutes(5);
+
+    /** Threads sending multicast chunks (up to 500 tokens each) concurrently. */
+    private int sendThreads = 4;
+
+    /** Immediate retries of a chunk's transiently failed tokens before they go back to the outbox. */
+    private int chunkRetries = 2;
+
+    /** Delay before the first immediate chunk retry; doubles per retry, with jitter. */
+    private Duration chunkRetryBackoff = Duration.ofMillis(500);
+
+    /**
+     * Longest a new-request push is held back while a hotel's coalescing window keeps being
+     * extended by further requests.
+     */
+    private Duration coalesceMaxDelay = Duration.ofMinutes(2);
+
+    /**
+     * Staff employee roles that receive new-request pushes of each type. Types with no
+     * entry (OTHER by default) go to the fallback recipients.
+     */
+    private Map<RequestType, List<EmployeeRole>> routing = new EnumMap<>(Map.of(
+            RequestType.HOUSEKEEPING, List.of(EmployeeRole.HOUSEKEEPING),
+            RequestType.FOOD, List.of(EmployeeRole.ROOM_SERVICE),
+            RequestType.MAINTENANCE, List.of(EmployeeRole.MAINTENANCE)
+    ));
+
+    /**
+     * Staff employee roles that, with the hotel's admins, receive a push when its type is
+     * not routed or none of the routed staff has a device.
+     */
+    private List<EmployeeRole> fallbackEmployeeRoles = List.of(EmployeeRole.FRONT_DESK);
+
+    /** Active tokens not seen (registered or refreshed) for this long are deactivated by the sweep. */
+    private Duration tokenStaleAfter = Duration.ofDays(60);
+
+    /** Tokens inactive for this long (stale, unregistered or rejected by FCM) are deleted by the sweep. */
+    private Duration tokenInactiveRetention = Duration.ofDays(30);
+
+    /** Delay between stale-token sweeps. */
+    private Duration tokenSweepInterval = Duration.ofHours(6);
+
+    /** Tokens deleted per sweep transaction. */
+    private int tokenSweepBatchSize = 1000;
+
+    public Duration getDispatchInterval() {
+        return dispatchInterval;
+    }
+
+    public void setDispatchInterval(Duration dispatchInterval) {
+        this.dispatchInterval = dispatchInterval;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public Duration getLease() {
+        return lease;
+    }
+
+    public void setLease(Duration lease) {
+        this.lease = lease;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    public Duration getInitialBackoff() {
+        return initialBackoff;
+    }
+
+    public void setInitialBackoff(Duration initialBackoff) {
+        this.initialBackoff = initialBackoff;
+    }
+
+    public Duration getMaxBackoff() {
+        return maxBackoff;
+    }
+
+    public void setMaxBackoff(Duration maxBackoff) {
+        this.maxBackoff = maxBackoff;
+    }
+
+    public Duration getFailedRetention() {
+        return failedRetention;
+    }
+
+    public void setFailedRetention(Duration failedRetention) {
+        this.failedRetention = failedRetention;
+    }
+
+    public Duration getFailedPurgeInterval() {
+        return failedPurgeInterval;
+    }
+
+    public void setFailedPurgeInterval(Duration failedPurgeInterval) {
+        this.failedPurgeInterval = failedPurgeInterval;
+    }
+
+    public Duration getRecipientCacheTtl() {
+        return recipientCacheTtl;
+    }
+
+    public void setRecipientCacheTtl(Duration recipientCacheTtl) {
+        this.recipientCacheTtl = recipientCacheTtl;
+    }
+
+    public int getSendThreads() {
+        return sendThreads;
+    }
+
+    public void setSendThreads(int sendThreads) {
+        this.sendThreads = sendThreads;
+    }
+
+    public int getChunkRetries() {
+        return chunkRetries;
+    }
+
+    public void setChunkRetries(int chunkRetries) {
+        this.chunkRetries = chunkRetries;
+    }
+
+    public Duration getChunkRetryBackoff() {
+        return chunkRetryBackoff;
+    }
+
+    public void setChunkRetryBackoff(Duration chunkRetryBackoff) {
+        this.chunkRetryBackoff = chunkRetryBackoff;
+    }
+
+    public Duration getCoalesceMaxDelay() {
+        return coalesceMaxDelay;
+    }
+
+    public void setCoalesceMaxDelay(Duration coalesceMaxDelay) {
+        this.coalesceMaxDelay = coalesceMaxDelay;
+    }
+
+    public Map<RequestType, List<EmployeeRole>> getRouting() {
+        return routing;
+    }
+
+    public void setRouting(Map<RequestType, List<EmployeeRole>> routing) {
+        this.routing = routing;
+    }
+
+    public List<EmployeeRole> getFallbackEmployeeRoles() {
+        return fallbackEmployeeRoles;
+    }
+
+    public void setFallbackEmployeeRoles(List<EmployeeRole> fallbackEmployeeRoles) {
+        this.fallbackEmployeeRoles = fallbackEmployeeRoles;
+    }
+
+    public Duration getTokenStaleAfter() {
+        return tokenStaleAfter;
+    }
+
+    public void setTokenStaleAfter(Duration tokenStaleAfter) {
+        this.tokenStaleAfter = tokenStaleAfter;
+    }
+
+    public Duration getTokenInactiveRetention() {
+        return tokenInactiveRetention;
+    }
+
+    public void setTokenInactiveRetention(Duration tokenInactiveRetention) {
+        this.tokenInactiveRetention = tokenInactiveRetention;
+    }
+
+    public Duration getTokenSweepInterval() {
+        return tokenSweepInterval;
+    }
+
+    public void setTokenSweepInterval(Duration tokenSweepInterval) {
+        this.tokenSweepInterval = tokenSweepInterval;
+    }
+
+    public int getTokenSweepBatchSize() {
+        return tokenSweepBatchSize;
+    }
+
+    public void setTokenSweepBatchSize(int tokenSweepBatchSize) {
+        this.tokenSweepBatchSize = tokenSweepBatchSize;
+    }
+}
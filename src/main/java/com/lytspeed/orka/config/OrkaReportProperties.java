@@ -0,0 +1,31 @@
+package com.lytspeed.orka.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "orka.reports")
+public class OrkaReportProperties {
+
+    /** How long a computed report is served from memory when no request change invalidates it first. */
+    private Duration cacheTtl = Duration.ofMinutes(1);
+
+    /** Upper bound on cached reports; custom date ranges make the key space open-ended. */
+    private int cacheMaxEntries = 1000;
+
+    public Duration getCacheTtl() {
+        return cacheTtl;
+    }
+
+    public void setCacheTtl(Duration cacheTtl) {
+        this.cacheTtl = cacheTtl;
+    }
+
+    public int getCacheMaxEntries() {
+        return cacheMaxEntries;
+    }
+
+    public void setCacheMaxEntries(int cacheMaxEntries) {
+        this.cacheMaxEntries = cacheMaxEntries;
+    }
+}
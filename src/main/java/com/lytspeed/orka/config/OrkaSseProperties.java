@@ -0,0 +1,56 @@
+package com.lytspeed.orka.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "orka.sse")
+public class OrkaSseProperties {
+
+    /**
+     * Number of recent request change events kept for Last-Event-ID replay. Capped at
+     * {@link #maxQueuedEvents}, since a longer replay would overflow the client's queue.
+     */
+    private int replayBufferSize = 256;
+
+    /** Threads draining the per-client outbound queues. */
+    private int senderThreads = 4;
+
+    /** Events a single client may have queued before it is evicted as too slow. */
+    private int maxQueuedEvents = 256;
+
+    /** Changes within this window are merged into one broadcast; zero disables coalescing. */
+    private Duration coalesceWindow = Duration.ofMillis(150);
+
+    public int getReplayBufferSize() {
+        return replayBufferSize;
+    }
+
+    public void setReplayBufferSize(int replayBufferSize) {
+        this.replayBufferSize = replayBufferSize;
+    }
+
+    public int getSenderThreads() {
+        return senderThreads;
+    }
+
+    public void setSenderThreads(int senderThreads) {
+        this.senderThreads = senderThreads;
+    }
+
+    public int getMaxQueuedEvents() {
+        return maxQueuedEvents;
+    }
+
+    public void setMaxQueuedEvents(int maxQueuedEvents) {
+        this.maxQueuedEvents = maxQueuedEvents;
+    }
+
+    public Duration getCoalesceWindow() {
+        return coalesceWindow;
+    }
+
+    public void setCoalesceWindow(Duration coalesceWindow) {
+        this.coalesceWindow = coalesceWindow;
+    }
+}
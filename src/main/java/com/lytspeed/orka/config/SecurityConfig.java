@@ -56,8 +56,8 @@ public class SecurityConfig {
                 "capacitor://localhost"
         ));
         configuration.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "OPTIONS"));
-        configuration.setAllowedHeaders(List.of("Authorization", "Content-Type", "Cache-Control"));
-        configuration.setExposedHeaders(List.of("Authorization", "Cache-Control", "X-Accel-Buffering"));
+        configuration.setAllowedHeaders(List.of("Authorization", "Content-Type", "Cache-Control", "Last-Event-ID"));
+        configuration.setExposedHeaders(List.of("Authorization", "Cache-Control", "X-Accel-Buffering", "X-Next-Cursor"));
         configuration.setAllowCredentials(true);
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
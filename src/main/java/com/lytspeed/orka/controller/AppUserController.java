@@ -16,8 +16,10 @@ import com.lytspeed.orka.entity.enums.EmployeeRole;
 import com.lytspeed.orka.repository.AppUserRepository;
 import com.lytspeed.orka.repository.HotelGroupRepository;
 import com.lytspeed.orka.repository.HotelRepository;
+import com.lytspeed.orka.repository.ScopeSpecifications;
 import com.lytspeed.orka.security.AccessScopeService;
 import com.lytspeed.orka.security.AuthenticatedAppUserService;
+import com.lytspeed.orka.service.PushRecipientIndex;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
@@ -26,6 +28,7 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Transactional
@@ -39,26 +42,29 @@ public class AppUserController {
     private final HotelRepository hotelRepository;
     private final AuthenticatedAppUserService authenticatedAppUserService;
     private final AccessScopeService accessScopeService;
+    private final PushRecipientIndex pushRecipientIndex;
 
     public AppUserController(
             AppUserRepository appUserRepository,
             HotelGroupRepository hotelGroupRepository,
             HotelRepository hotelRepository,
             AuthenticatedAppUserService authenticatedAppUserService,
-            AccessScopeService accessScopeService
+            AccessScopeService accessScopeService,
+            PushRecipientIndex pushRecipientIndex
     ) {
         this.appUserRepository = appUserRepository;
         this.hotelGroupRepository = hotelGroupRepository;
         this.hotelRepository = hotelRepository;
         this.authenticatedAppUserService = authenticatedAppUserService;
         this.accessScopeService = accessScopeService;
+        this.pushRecipientIndex = pushRecipientIndex;
     }
 
     @GetMapping
     public List<AppUserDto> getAll() {
         AppUser actor = authenticatedAppUserService.requireCurrentUser();
-        return appUserRepository.findAll().stream()
-                .filter(user -> accessScopeService.canReadAppUser(actor, user))
+        return appUserRepository.findAll(ScopeSpecifications.appUsersReadableBy(actor, accessScopeService.scopeOf(actor)))
+                .stream()
                 .map(this::toDto)
                 .collect(Collectors.toList());
     }
@@ -90,7 +96,7 @@ public class AppUserController {
         return ResponseEntity.ok(toDto(actor));
     }
 
-    /** Self-service update: name, phone, fcmEnabled only. */
+    /** Self-service update: name, phone, fcmEnabled and pushRequestTypes only. */
     @PutMapping("/me/profile")
     public ResponseEntity<AppUserDto> updateMyProfile(@RequestBody AppUserProfileUpdateRequest input) {
         AppUser actor = authenticatedAppUserService.requireCurrentUser();
@@ -104,15 +110,19 @@ public class AppUserController {
         if (input.getFcmEnabled() != null) {
             actor.setFcmEnabled(input.getFcmEnabled());
         }
+        if (input.getPushRequestTypes() != null) {
+            actor.getPushRequestTypes().clear();
+            actor.getPushRequestTypes().addAll(input.getPushRequestTypes());
+        }
+        pushRecipientIndex.invalidate();
         return ResponseEntity.ok(toDto(appUserRepository.save(actor)));
     }
 
     @GetMapping("/pending")
     public List<AppUserDto> getPending() {
         AppUser actor = authenticatedAppUserService.requireCurrentUser();
-        return appUserRepository.findAll().stream()
-                .filter(user -> user.getStatus() == AppUserStatus.PENDING_APPROVAL)
-                .filter(user -> accessScopeService.canManagePendingUser(actor, user))
+        return appUserRepository.findAll(ScopeSpecifications.pendingAppUsers(accessScopeService.pendingApprovalScopeOf(actor)))
+                .stream()
                 .map(this::toDto)
                 .toList();
     }
@@ -199,6 +209,8 @@ public class AppUserController {
             user.setAssignedHotel(null);
         }
 
+        pushRecipientIndex.invalidate();
+
         return ResponseEntity.ok(toDto(appUserRepository.save(user)));
     }
 
@@ -234,6 +246,8 @@ public class AppUserController {
         user.setEmployeeRole(null);
         user.setActive(true);
 
+        pushRecipientIndex.invalidate();
+
         return ResponseEntity.ok(toDto(appUserRepository.save(user)));
     }
 
@@ -269,6 +283,7 @@ public class AppUserController {
             }
             existing.setStatus(AppUserStatus.REJECTED);
             existing.setActive(false);
+            pushRecipientIndex.invalidate();
             return ResponseEntity.ok(toDto(appUserRepository.save(existing)));
         }
 
@@ -310,6 +325,8 @@ public class AppUserController {
         }
         existing.setStatus(nextStatus);
 
+        pushRecipientIndex.invalidate();
+
         return ResponseEntity.ok(toDto(appUserRepository.save(existing)));
     }
 
@@ -358,6 +375,7 @@ public class AppUserController {
         existing.setAccessRole(input.getAccessRole());
         existing.setEmployeeRole(resolveEmployeeRole(input));
         existing.setActive(input.getActive() == null || input.getActive());
+        pushRecipientIndex.invalidate();
         return ResponseEntity.ok(toDto(appUserRepository.save(existing)));
     }
 
@@ -369,6 +387,7 @@ public class AppUserController {
             return ResponseEntity.notFound().build();
         }
         appUserRepository.deleteById(id);
+        pushRecipientIndex.invalidate();
         return ResponseEntity.noContent().build();
     }
 
@@ -586,7 +605,8 @@ public class AppUserController {
                 assignedHotelDto,
                 user.getCreatedAt(),
                 user.getUpdatedAt(),
-                user.getFcmEnabled() != null ? user.getFcmEnabled() : Boolean.TRUE
+                user.getFcmEnabled() != null ? user.getFcmEnabled() : Boolean.TRUE,
+                Set.copyOf(user.getPushRequestTypes())
         );
     }
 }
@@ -8,6 +8,8 @@ import com.lytspeed.orka.entity.DeviceToken;
 import com.lytspeed.orka.repository.DeviceTokenRepository;
 import com.lytspeed.orka.security.AccessScopeService;
 import com.lytspeed.orka.security.AuthenticatedAppUserService;
+import com.lytspeed.orka.service.FcmNotificationService;
+import com.lytspeed.orka.service.PushRecipientIndex;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
@@ -15,6 +17,7 @@ import org.springframework.web.bind.annotation.*;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 
 @Transactional
@@ -26,15 +29,21 @@ public class DeviceTokenController {
     private final DeviceTokenRepository deviceTokenRepository;
     private final AuthenticatedAppUserService authenticatedAppUserService;
     private final AccessScopeService accessScopeService;
+    private final PushRecipientIndex pushRecipientIndex;
+    private final FcmNotificationService fcmNotificationService;
 
     public DeviceTokenController(
             DeviceTokenRepository deviceTokenRepository,
             AuthenticatedAppUserService authenticatedAppUserService,
-            AccessScopeService accessScopeService
+            AccessScopeService accessScopeService,
+            PushRecipientIndex pushRecipientIndex,
+            FcmNotificationService fcmNotificationService
     ) {
         this.deviceTokenRepository = deviceTokenRepository;
         this.authenticatedAppUserService = authenticatedAppUserService;
         this.accessScopeService = accessScopeService;
+        this.pushRecipientIndex = pushRecipientIndex;
+        this.fcmNotificationService = fcmNotificationService;
     }
 
     @GetMapping
@@ -46,6 +55,14 @@ public class DeviceTokenController {
         return deviceTokenRepository.findByAppUserIdAndActiveTrue(actor.getId()).stream().map(this::toDto).toList();
     }
 
+    /** Multicast chunk latency and failure counters (superadmin only). */
+    @GetMapping("/push-stats")
+    public Map<String, Object> pushStats() {
+        AppUser actor = authenticatedAppUserService.requireCurrentUser();
+        accessScopeService.requireSuperAdmin(actor);
+        return fcmNotificationService.stats();
+    }
+
     @GetMapping("/app-user/{appUserId}")
     public List<DeviceTokenDto> getByAppUser(@PathVariable Long appUserId) {
         AppUser actor = authenticatedAppUserService.requireCurrentUser();
@@ -65,14 +82,10 @@ public class DeviceTokenController {
         String platform = normalizePlatform(input.getPlatform());
         AppUser appUser = authenticatedAppUserService.requireCurrentUser();
 
-        DeviceToken deviceToken = deviceTokenRepository.findByFcmToken(fcmToken).orElseGet(DeviceToken::new);
-        deviceToken.setAppUser(appUser);
-        deviceToken.setFcmToken(fcmToken);
-        deviceToken.setPlatform(platform);
-        deviceToken.setActive(true);
-        deviceToken.setLastSeenAt(LocalDateTime.now());
-
-        return ResponseEntity.ok(toDto(deviceTokenRepository.save(deviceToken)));
+        // One statement whether the token is new, reinstalled, or moving between accounts
+        deviceTokenRepository.upsert(appUser.getId(), fcmToken, platform, LocalDateTime.now());
+        pushRecipientIndex.invalidate();
+        return ResponseEntity.ok(toDto(deviceTokenRepository.findByFcmToken(fcmToken).orElseThrow()));
     }
 
     @PostMapping("/unregister")
@@ -95,6 +108,7 @@ public class DeviceTokenController {
         token.setActive(false);
         token.setLastSeenAt(LocalDateTime.now());
         deviceTokenRepository.save(token);
+        pushRecipientIndex.invalidate();
         return ResponseEntity.noContent().build();
     }
 
@@ -7,6 +7,7 @@ import com.lytspeed.orka.entity.Hotel;
 import com.lytspeed.orka.entity.HotelGroup;
 import com.lytspeed.orka.repository.HotelGroupRepository;
 import com.lytspeed.orka.repository.HotelRepository;
+import com.lytspeed.orka.repository.ScopeSpecifications;
 import com.lytspeed.orka.security.AccessScopeService;
 import com.lytspeed.orka.security.AuthenticatedAppUserService;
 import org.springframework.http.ResponseEntity;
@@ -44,7 +45,7 @@ public class HotelController {
     @GetMapping
     public List<HotelDto> getAll() {
         AppUser actor = authenticatedAppUserService.requireCurrentUser();
-        return accessScopeService.filterHotels(actor, hotelRepository.findAll()).stream()
+        return hotelRepository.findAll(ScopeSpecifications.hotels(accessScopeService.scopeOf(actor))).stream()
                 .map(this::toDto)
                 .collect(Collectors.toList());
     }
@@ -80,6 +81,7 @@ public class HotelController {
                     existing.setCode(resolveOrGenerateCode(input.getCode(), input.getName()));
                     existing.setCity(input.getCity());
                     existing.setCountry(input.getCountry());
+                    existing.setPushCoalesceSeconds(input.getPushCoalesceSeconds());
                     Optional<HotelGroup> group = resolveGroup(input.getHotelGroup());
                     if (group.isPresent() && accessScopeService.canManageHotelGroup(actor, group.get())) {
                         existing.setHotelGroup(group.get());
@@ -123,7 +125,8 @@ public class HotelController {
                 hotel.getCode(),
                 hotel.getCity(),
                 hotel.getCountry(),
-                groupDto
+                groupDto,
+                hotel.getPushCoalesceSeconds()
         );
     }
 
@@ -1,19 +1,30 @@
 package com.lytspeed.orka.controller;
 
-import com.lytspeed.orka.entity.Request;
 import com.lytspeed.orka.entity.AppUser;
+import com.lytspeed.orka.entity.enums.LatencyMetric;
 import com.lytspeed.orka.entity.enums.RequestStatus;
 import com.lytspeed.orka.entity.enums.RequestType;
-import com.lytspeed.orka.repository.RequestRepository;
+import com.lytspeed.orka.model.LatencyHistogram;
+import com.lytspeed.orka.repository.RequestReportRepository;
+import com.lytspeed.orka.security.AccessScope;
 import com.lytspeed.orka.security.AccessScopeService;
 import com.lytspeed.orka.security.AuthenticatedAppUserService;
+import com.lytspeed.orka.service.ReportCache;
+import com.lytspeed.orka.service.RequestRollupService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Transactional(readOnly = true)
@@ -22,16 +33,24 @@ import java.util.stream.Collectors;
 @CrossOrigin
 public class ReportController {
 
-    private final RequestRepository requestRepository;
+    private static final int MAX_RANGE_DAYS = 366;
+
+    private final RequestReportRepository reportRepository;
+    private final RequestRollupService rollupService;
+    private final ReportCache reportCache;
     private final AccessScopeService accessScopeService;
     private final AuthenticatedAppUserService authenticatedAppUserService;
 
     public ReportController(
-            RequestRepository requestRepository,
+            RequestReportRepository reportRepository,
+            RequestRollupService rollupService,
+            ReportCache reportCache,
             AccessScopeService accessScopeService,
             AuthenticatedAppUserService authenticatedAppUserService
     ) {
-        this.requestRepository = requestRepository;
+        this.reportRepository = reportRepository;
+        this.rollupService = rollupService;
+        this.reportCache = reportCache;
         this.accessScopeService = accessScopeService;
         this.authenticatedAppUserService = authenticatedAppUserService;
     }
@@ -40,83 +59,228 @@ public class ReportController {
      * Returns a scoped overview of request metrics for the currently authenticated user.
      * - SUPERADMIN / HOTEL_GROUP_ADMIN: sees their respective scope
      * - HOTEL_ADMIN / ADMIN / STAFF: sees their hotel only
+     *
+     * Aggregated in the database (archived requests included through their rollup counters).
      */
     @GetMapping("/overview")
-    public Map<String, Object> overview() {
+    public ResponseEntity<Map<String, Object>> overview() {
         AppUser actor = authenticatedAppUserService.requireCurrentUser();
-        List<Request> all = requestRepository.findAll();
-        List<Request> scoped = accessScopeService.filterRequests(actor, all);
+        AccessScope scope = accessScopeService.scopeOf(actor);
+        LocalDate today = LocalDate.now();
+        return cached(scope, "overview:" + today, () -> overview(scope, today));
+    }
+
+    private Map<String, Object> overview(AccessScope scope, LocalDate today) {
+        List<RequestReportRepository.StatusTypeTotals> totals = reportRepository.totalsByStatusAndType(scope);
 
         // --- counts by status ---
         Map<String, Long> byStatus = new LinkedHashMap<>();
         for (RequestStatus s : RequestStatus.values()) {
-            byStatus.put(s.name(), scoped.stream().filter(r -> r.getStatus() == s).count());
+            byStatus.put(s.name(), totals.stream().filter(t -> t.status() == s)
+                    .mapToLong(RequestReportRepository.StatusTypeTotals::count).sum());
         }
 
         // --- counts by type ---
         Map<String, Long> byType = new LinkedHashMap<>();
         for (RequestType t : RequestType.values()) {
-            byType.put(t.name(), scoped.stream().filter(r -> r.getType() == t).count());
+            byType.put(t.name(), totals.stream().filter(total -> total.type() == t)
+                    .mapToLong(RequestReportRepository.StatusTypeTotals::count).sum());
         }
 
         // --- average accept time (minutes: createdAt → acceptedAt) ---
-        OptionalDouble avgAccept = scoped.stream()
-                .filter(r -> r.getCreatedAt() != null && r.getAcceptedAt() != null)
-                .mapToLong(r -> java.time.Duration.between(r.getCreatedAt(), r.getAcceptedAt()).toMinutes())
-                .average();
+        Long avgAccept = average(
+                totals.stream().mapToLong(RequestReportRepository.StatusTypeTotals::acceptMinutesSum).sum(),
+                totals.stream().mapToLong(RequestReportRepository.StatusTypeTotals::acceptCount).sum()
+        );
 
         // --- average complete time (minutes: acceptedAt → completedAt) ---
-        OptionalDouble avgComplete = scoped.stream()
-                .filter(r -> r.getAcceptedAt() != null && r.getCompletedAt() != null)
-                .mapToLong(r -> java.time.Duration.between(r.getAcceptedAt(), r.getCompletedAt()).toMinutes())
-                .average();
+        Long avgComplete = average(
+                totals.stream().mapToLong(RequestReportRepository.StatusTypeTotals::completeMinutesSum).sum(),
+                totals.stream().mapToLong(RequestReportRepository.StatusTypeTotals::completeCount).sum()
+        );
 
         // --- top 5 rooms by request count ---
-        List<Map<String, Object>> topRooms = scoped.stream()
-                .filter(r -> r.getRoom() != null)
-                .collect(Collectors.groupingBy(r -> r.getRoom().getId(), Collectors.counting()))
-                .entrySet().stream()
-                .sorted(Map.Entry.<Long, Long>comparingByValue().reversed())
-                .limit(5)
-                .map(e -> {
-                    Request sample = scoped.stream()
-                            .filter(r -> r.getRoom() != null && r.getRoom().getId().equals(e.getKey()))
-                            .findFirst().orElseThrow();
+        List<Map<String, Object>> topRooms = reportRepository.topRooms(scope, 5).stream()
+                .map(room -> {
                     Map<String, Object> m = new LinkedHashMap<>();
-                    m.put("roomNumber", sample.getRoom().getNumber());
-                    m.put("floor", sample.getRoom().getFloor());
-                    m.put("count", e.getValue());
+                    m.put("roomNumber", room.roomNumber());
+                    m.put("floor", room.floor());
+                    m.put("count", room.count());
                     return m;
                 })
                 .collect(Collectors.toList());
 
         // --- requests per day, last 7 days ---
-        LocalDate today = LocalDate.now();
+        Map<LocalDate, Long> countsByDay = reportRepository.countsPerDay(scope, today.minusDays(6), today.plusDays(1))
+                .stream()
+                .collect(Collectors.toMap(RequestReportRepository.DayCount::day, RequestReportRepository.DayCount::count));
         DateTimeFormatter fmt = DateTimeFormatter.ISO_LOCAL_DATE;
         List<Map<String, Object>> perDay = new ArrayList<>();
         for (int i = 6; i >= 0; i--) {
             LocalDate day = today.minusDays(i);
-            LocalDateTime start = day.atStartOfDay();
-            LocalDateTime end = day.plusDays(1).atStartOfDay();
-            long count = scoped.stream()
-                    .filter(r -> r.getCreatedAt() != null
-                            && !r.getCreatedAt().isBefore(start)
-                            && r.getCreatedAt().isBefore(end))
-                    .count();
             Map<String, Object> entry = new LinkedHashMap<>();
             entry.put("date", day.format(fmt));
-            entry.put("count", count);
+            entry.put("count", countsByDay.getOrDefault(day, 0L));
             perDay.add(entry);
         }
 
         Map<String, Object> result = new LinkedHashMap<>();
-        result.put("totalRequests", (long) scoped.size());
+        result.put("totalRequests", totals.stream().mapToLong(RequestReportRepository.StatusTypeTotals::count).sum());
         result.put("byStatus", byStatus);
         result.put("byType", byType);
-        result.put("avgAcceptMinutes", avgAccept.isPresent() ? Math.round(avgAccept.getAsDouble()) : null);
-        result.put("avgCompleteMinutes", avgComplete.isPresent() ? Math.round(avgComplete.getAsDouble()) : null);
+        result.put("avgAcceptMinutes", avgAccept);
+        result.put("avgCompleteMinutes", avgComplete);
         result.put("topRooms", topRooms);
         result.put("requestsPerDay", perDay);
         return result;
     }
+
+    /**
+     * Request metrics for an inclusive date range (default: the last 30 days), read only
+     * from the hourly rollups so the cost depends on hours × hotels, not on request volume.
+     */
+    @GetMapping("/range")
+    public ResponseEntity<Map<String, Object>> range(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        AppUser actor = authenticatedAppUserService.requireCurrentUser();
+        AccessScope scope = accessScopeService.scopeOf(actor);
+        LocalDate end = to == null ? LocalDate.now() : to;
+        LocalDate start = from == null ? end.minusDays(29) : from;
+        if (start.isAfter(end) || ChronoUnit.DAYS.between(start, end) >= MAX_RANGE_DAYS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "from must not be after to, and the range is limited to " + MAX_RANGE_DAYS + " days");
+        }
+        return cached(scope, "range:" + start + ":" + end, () -> range(scope, start, end));
+    }
+
+    private Map<String, Object> range(AccessScope scope, LocalDate start, LocalDate end) {
+        List<RequestReportRepository.RollupTotals> totals =
+                reportRepository.rollupTotals(scope, start.atStartOfDay(), end.plusDays(1).atStartOfDay());
+
+        Map<String, Long> byStatus = new LinkedHashMap<>();
+        for (RequestStatus s : RequestStatus.values()) {
+            byStatus.put(s.name(), totals.stream().filter(t -> t.status() == s)
+                    .mapToLong(RequestReportRepository.RollupTotals::count).sum());
+        }
+        Map<String, Long> byType = new LinkedHashMap<>();
+        for (RequestType t : RequestType.values()) {
+            byType.put(t.name(), totals.stream().filter(total -> total.type() == t)
+                    .mapToLong(RequestReportRepository.RollupTotals::count).sum());
+        }
+
+        Map<LocalDate, Long> countsByDay = reportRepository.rollupCountsPerDay(scope, start, end.plusDays(1)).stream()
+                .collect(Collectors.toMap(RequestReportRepository.DayCount::day, RequestReportRepository.DayCount::count));
+        List<Map<String, Object>> perDay = new ArrayList<>();
+        for (LocalDate day = start; !day.isAfter(end); day = day.plusDays(1)) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("date", day.format(DateTimeFormatter.ISO_LOCAL_DATE));
+            entry.put("count", countsByDay.getOrDefault(day, 0L));
+            perDay.add(entry);
+        }
+
+        long ratingCount = totals.stream().mapToLong(RequestReportRepository.RollupTotals::ratingCount).sum();
+        long ratingSum = totals.stream().mapToLong(RequestReportRepository.RollupTotals::ratingSum).sum();
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("from", start.format(DateTimeFormatter.ISO_LOCAL_DATE));
+        result.put("to", end.format(DateTimeFormatter.ISO_LOCAL_DATE));
+        result.put("totalRequests", totals.stream().mapToLong(RequestReportRepository.RollupTotals::count).sum());
+        result.put("byStatus", byStatus);
+        result.put("byType", byType);
+        result.put("avgAcceptMinutes", average(
+                totals.stream().mapToLong(RequestReportRepository.RollupTotals::acceptMinutesSum).sum(),
+                totals.stream().mapToLong(RequestReportRepository.RollupTotals::acceptCount).sum()));
+        result.put("avgCompleteMinutes", average(
+                totals.stream().mapToLong(RequestReportRepository.RollupTotals::completeMinutesSum).sum(),
+                totals.stream().mapToLong(RequestReportRepository.RollupTotals::completeCount).sum()));
+        result.put("avgRating", ratingCount == 0 ? null : Math.round(100.0 * ratingSum / ratingCount) / 100.0);
+        result.put("requestsPerDay", perDay);
+        return result;
+    }
+
+    /** Rebuilds the hourly rollups from live and archived requests (superadmin only). */
+    @PostMapping("/rollups/backfill")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Map<String, Object> backfillRollups() {
+        AppUser actor = authenticatedAppUserService.requireCurrentUser();
+        accessScopeService.requireSuperAdmin(actor);
+        Map<String, Object> result = Map.of(
+                "buckets", rollupService.backfill(),
+                "latencyBuckets", rollupService.backfillLatencies()
+        );
+        reportCache.clear();
+        return result;
+    }
+
+    /**
+     * p50/p90/p99 accept (createdAt → acceptedAt) and complete (acceptedAt → completedAt)
+     * minutes over the actor's scope, overall and per request type. Read from the stored
+     * per-hotel histograms; values are bucket upper bounds, within 12.5% of the exact figure.
+     */
+    @GetMapping("/latency")
+    public ResponseEntity<Map<String, Object>> latency() {
+        AppUser actor = authenticatedAppUserService.requireCurrentUser();
+        AccessScope scope = accessScopeService.scopeOf(actor);
+        return cached(scope, "latency", () -> latency(scope));
+    }
+
+    private Map<String, Object> latency(AccessScope scope) {
+        Map<LatencyMetric, LatencyHistogram> overall = new EnumMap<>(LatencyMetric.class);
+        Map<LatencyMetric, Map<RequestType, LatencyHistogram>> perType = new EnumMap<>(LatencyMetric.class);
+        for (LatencyMetric metric : LatencyMetric.values()) {
+            overall.put(metric, new LatencyHistogram());
+            Map<RequestType, LatencyHistogram> byType = new EnumMap<>(RequestType.class);
+            for (RequestType type : RequestType.values()) {
+                byType.put(type, new LatencyHistogram());
+            }
+            perType.put(metric, byType);
+        }
+        for (RequestReportRepository.LatencyBucketCount bucket : reportRepository.latencyBuckets(scope)) {
+            overall.get(bucket.metric()).add(bucket.bucket(), bucket.count());
+            if (bucket.type() != null) {
+                perType.get(bucket.metric()).get(bucket.type()).add(bucket.bucket(), bucket.count());
+            }
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (LatencyMetric metric : LatencyMetric.values()) {
+            Map<String, Object> byType = new LinkedHashMap<>();
+            perType.get(metric).forEach((type, histogram) -> byType.put(type.name(), percentiles(histogram)));
+            Map<String, Object> entry = percentiles(overall.get(metric));
+            entry.put("byType", byType);
+            result.put(metric == LatencyMetric.ACCEPT ? "acceptMinutes" : "completeMinutes", entry);
+        }
+        return result;
+    }
+
+    /**
+     * Serves a report from {@link ReportCache}. The body carries a strong ETag, so a dashboard
+     * polling with If-None-Match gets a 304 while the scope's numbers are unchanged.
+     */
+    private ResponseEntity<Map<String, Object>> cached(
+            AccessScope scope,
+            String key,
+            Supplier<Map<String, Object>> loader
+    ) {
+        ReportCache.Cached<Map<String, Object>> report = reportCache.get(scope, key, loader);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .eTag(report.etag())
+                .body(report.body());
+    }
+
+    private static Map<String, Object> percentiles(LatencyHistogram histogram) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("count", histogram.getTotalCount());
+        m.put("p50", histogram.percentile(50));
+        m.put("p90", histogram.percentile(90));
+        m.put("p99", histogram.percentile(99));
+        return m;
+    }
+
+    private static Long average(long sum, long count) {
+        return count == 0 ? null : Math.round((double) sum / count);
+    }
 }
@@ -1,32 +1,51 @@
 package com.lytspeed.orka.controller;
 
+import com.lytspeed.orka.config.OrkaExportProperties;
 import com.lytspeed.orka.config.OrkaGuestProperties;
 import com.lytspeed.orka.dto.*;
 import com.lytspeed.orka.entity.*;
 import com.lytspeed.orka.entity.enums.AccessRole;
+import com.lytspeed.orka.event.RequestChangedEvent;
 import com.lytspeed.orka.repository.AppUserRepository;
 import com.lytspeed.orka.repository.GuestSessionRepository;
 import com.lytspeed.orka.repository.HotelRepository;
 import com.lytspeed.orka.repository.RequestRepository;
+import com.lytspeed.orka.repository.RequestSpecifications;
 import com.lytspeed.orka.repository.RoomRepository;
+import com.lytspeed.orka.security.AccessScope;
 import com.lytspeed.orka.security.AccessScopeService;
 import com.lytspeed.orka.security.AuthenticatedAppUserService;
-import com.lytspeed.orka.service.FcmNotificationService;
+import com.lytspeed.orka.service.RequestBoard;
+import com.lytspeed.orka.service.RequestExportService;
+import com.lytspeed.orka.service.RequestRollupService;
 import com.lytspeed.orka.service.RequestSseService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 import java.time.LocalDateTime;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.Arrays;
 import java.util.UUID;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Transactional
 @RestController
@@ -34,16 +53,25 @@ import java.util.UUID;
 @CrossOrigin
 public class RequestController {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+
     private final RequestRepository requestRepository;
     private final HotelRepository hotelRepository;
     private final RoomRepository roomRepository;
     private final AppUserRepository appUserRepository;
     private final GuestSessionRepository guestSessionRepository;
-    private final FcmNotificationService fcmNotificationService;
+    private final ApplicationEventPublisher eventPublisher;
     private final AuthenticatedAppUserService authenticatedAppUserService;
     private final AccessScopeService accessScopeService;
     private final RequestSseService sseService;
+    private final RequestBoard requestBoard;
+    private final RequestRollupService rollupService;
+    private final RequestExportService exportService;
     private final OrkaGuestProperties orkaGuestProperties;
+    private final OrkaExportProperties orkaExportProperties;
+    private final ThreadPoolTaskExecutor exportTaskExecutor;
 
     public RequestController(
             RequestRepository requestRepository,
@@ -51,45 +79,141 @@ public class RequestController {
             RoomRepository roomRepository,
             AppUserRepository appUserRepository,
             GuestSessionRepository guestSessionRepository,
-            FcmNotificationService fcmNotificationService,
+            ApplicationEventPublisher eventPublisher,
             AuthenticatedAppUserService authenticatedAppUserService,
             AccessScopeService accessScopeService,
             RequestSseService sseService,
-            OrkaGuestProperties orkaGuestProperties
+            RequestBoard requestBoard,
+            RequestRollupService rollupService,
+            RequestExportService exportService,
+            OrkaGuestProperties orkaGuestProperties,
+            OrkaExportProperties orkaExportProperties,
+            @Qualifier("exportTaskExecutor") ThreadPoolTaskExecutor exportTaskExecutor
     ) {
         this.requestRepository = requestRepository;
         this.hotelRepository = hotelRepository;
         this.roomRepository = roomRepository;
         this.appUserRepository = appUserRepository;
         this.guestSessionRepository = guestSessionRepository;
-        this.fcmNotificationService = fcmNotificationService;
+        this.eventPublisher = eventPublisher;
         this.authenticatedAppUserService = authenticatedAppUserService;
         this.accessScopeService = accessScopeService;
         this.sseService = sseService;
+        this.requestBoard = requestBoard;
+        this.rollupService = rollupService;
+        this.exportService = exportService;
         this.orkaGuestProperties = orkaGuestProperties;
+        this.orkaExportProperties = orkaExportProperties;
+        this.exportTaskExecutor = exportTaskExecutor;
     }
 
     /**
      * SSE stream — one long-lived connection per authenticated client.
-     * Pushes a named "requests" event (JSON array of RequestDto scoped to the user)
-     * whenever any request is created, updated, or deleted.
+     * Sends a named "requests" snapshot (JSON array of the active NEW / ACCEPTED
+     * RequestDto scoped to the user, served from the in-memory board) on connect, then "request-created" / "request-updated" / "request-deleted"
+     * deltas carrying only the changed RequestDto.
+     *
+     * A reconnecting EventSource sends Last-Event-ID; if the missed deltas are still
+     * buffered they are replayed instead of resending the snapshot.
      *
      * Authentication: Firebase ID token passed as ?token= query param
      * (EventSource cannot set Authorization headers).
      */
     @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public SseEmitter stream() {
+    public SseEmitter stream(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        AppUser actor = authenticatedAppUserService.requireCurrentUser();
+        return sseService.register(actor, lastEventId, requestBoard::snapshot);
+    }
+
+    /** Sender queue depth and eviction counters for the SSE stream (superadmin only). */
+    @GetMapping("/stream/stats")
+    public Map<String, Object> streamStats() {
         AppUser actor = authenticatedAppUserService.requireCurrentUser();
-        List<Request> all = requestRepository.findAll();
-        return sseService.registerAndSendInitial(actor, all);
+        accessScopeService.requireSuperAdmin(actor);
+        return sseService.stats();
     }
 
+    /**
+     * Lists requests visible to the actor, newest first, one keyset page at a time.
+     * Filters and scope are applied in SQL; pass the X-Next-Cursor response header
+     * back as {@code cursor} to fetch the next page (absent on the last page).
+     *
+     * With {@code active=true} only NEW / ACCEPTED requests are returned, served from
+     * the in-memory board without touching the database.
+     */
     @GetMapping
-    public List<RequestDto> getAll() {
+    public ResponseEntity<List<RequestDto>> getAll(
+            @RequestParam(defaultValue = "false") boolean active,
+            RequestSearchRequest search
+    ) {
+        AppUser actor = authenticatedAppUserService.requireCurrentUser();
+        AccessScope scope = accessScopeService.scopeOf(actor);
+        if (active) {
+            return ResponseEntity.ok(requestBoard.snapshot(scope));
+        }
+
+        Optional<RequestCursor> after = RequestCursor.decode(search.getCursor());
+        if (search.getCursor() != null && !search.getCursor().isBlank() && after.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        int limit = search.getLimit() == null || search.getLimit() <= 0
+                ? DEFAULT_PAGE_SIZE
+                : Math.min(search.getLimit(), MAX_PAGE_SIZE);
+
+        // Fetch one extra row to learn whether another page exists.
+        List<RequestDto> rows = requestRepository.findRows(
+                RequestSpecifications.search(scope, search, after.orElse(null)),
+                RequestSpecifications.KEYSET_ORDER,
+                limit + 1
+        ).stream().map(RequestRow::toDto).collect(Collectors.toList());
+        boolean hasMore = rows.size() > limit;
+        List<RequestDto> page = hasMore ? rows.subList(0, limit) : rows;
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (hasMore) {
+            response.header(NEXT_CURSOR_HEADER, RequestCursor.after(page.get(page.size() - 1)).encode());
+        }
+        return response.body(page);
+    }
+
+    /**
+     * Streams every request visible to the actor that matches the filters (live and archived,
+     * newest first) as CSV or NDJSON. Use {@code createdFrom} / {@code createdTo} for the date
+     * range; cursor and limit are ignored. The body is written on an async thread after this
+     * method returns, so memory use does not depend on the number of rows, and the export
+     * gets its own {@code orka.export.timeout} instead of the app-wide async timeout. Exports
+     * run on a bounded pool ({@code orka.export.max-concurrent}); when it and its queue are
+     * full the request is refused with 503.
+     */
+    @GetMapping("/export")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public WebAsyncTask<Void> export(
+            @RequestParam(defaultValue = "csv") String format,
+            RequestSearchRequest search,
+            HttpServletResponse response
+    ) {
         AppUser actor = authenticatedAppUserService.requireCurrentUser();
-        return accessScopeService.filterRequests(actor, requestRepository.findAll()).stream()
-                .map(this::toDto)
-                .collect(Collectors.toList());
+        AccessScope scope = accessScopeService.scopeOf(actor);
+        RequestExportService.Format exportFormat;
+        try {
+            exportFormat = RequestExportService.Format.valueOf(format.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown export format: " + format);
+        }
+        ThreadPoolExecutor exportPool = exportTaskExecutor.getThreadPoolExecutor();
+        if (exportPool.getActiveCount() >= exportPool.getMaximumPoolSize() && exportPool.getQueue().remainingCapacity() == 0) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many exports in progress, try again later");
+        }
+        MediaType mediaType = exportFormat == RequestExportService.Format.CSV
+                ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                : new MediaType("application", "x-ndjson", StandardCharsets.UTF_8);
+        String filename = "requests." + exportFormat.name().toLowerCase(Locale.ROOT);
+        response.setContentType(mediaType.toString());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"");
+        return new WebAsyncTask<>(orkaExportProperties.getTimeout().toMillis(), exportTaskExecutor, () -> {
+            exportService.export(scope, search, exportFormat, response.getOutputStream());
+            return null;
+        });
     }
 
     @GetMapping("/{id}")
@@ -97,7 +221,7 @@ public class RequestController {
         AppUser actor = authenticatedAppUserService.requireCurrentUser();
         return requestRepository.findById(id)
                 .filter(request -> accessScopeService.canManageRequest(actor, request))
-                .map(request -> ResponseEntity.ok(toDto(request)))
+                .map(request -> ResponseEntity.ok(RequestDtoMapper.toDto(request)))
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
@@ -118,9 +242,9 @@ public class RequestController {
         request.setAssignee(assignee.orElse(null));
         applyWriteRequest(request, input);
         Request saved = requestRepository.save(request);
-        fcmNotificationService.notifyNewRequest(saved);
-        sseService.broadcast(requestRepository.findAll());
-        return ResponseEntity.ok(toDto(saved));
+        rollupService.replace(null, RequestRollupService.contributionOf(saved));
+        eventPublisher.publishEvent(RequestChangedEvent.created(saved));
+        return ResponseEntity.ok(RequestDtoMapper.toDto(saved));
     }
 
     @GetMapping("/guest/{token}")
@@ -150,9 +274,12 @@ public class RequestController {
                 GuestSession session = existingSession
                     .map(this::touchGuestSession)
                     .orElseGet(() -> createGuestSession(room));
-                    List<RequestDto> requests = requestRepository.findByGuestSessionIdOrderByCreatedAtDesc(session.getId())
+                    List<RequestDto> requests = requestRepository.findRows(
+                                    RequestSpecifications.guestSession(session.getId()),
+                                    Sort.by(Sort.Direction.DESC, "createdAt")
+                            )
                             .stream()
-                            .map(this::toDto)
+                            .map(RequestRow::toDto)
                             .collect(Collectors.toList());
 
                     return ResponseEntity.ok(new GuestSessionBootstrapDto(
@@ -205,9 +332,9 @@ public class RequestController {
         request.setComments(null);
 
         Request saved = requestRepository.save(request);
-        fcmNotificationService.notifyNewRequest(saved);
-        sseService.broadcast(requestRepository.findAll());
-        return ResponseEntity.ok(toDto(saved));
+        rollupService.replace(null, RequestRollupService.contributionOf(saved));
+        eventPublisher.publishEvent(RequestChangedEvent.created(saved));
+        return ResponseEntity.ok(RequestDtoMapper.toDto(saved));
     }
 
     @PutMapping("/{id}")
@@ -224,6 +351,8 @@ public class RequestController {
                     Optional<Hotel> hotel = resolveHotel(input.getHotelId());
                     Optional<Room> room = resolveRoom(input.getRoomId());
                     Optional<AppUser> assignee = resolveAppUser(input.getAssigneeId());
+                    Hotel previousHotel = existing.getHotel();
+                    RequestRollupService.Contribution previousContribution = RequestRollupService.contributionOf(existing);
 
                     if (hotel.isPresent() && accessScopeService.canManageHotel(actor, hotel.get())) {
                         existing.setHotel(hotel.get());
@@ -237,9 +366,12 @@ public class RequestController {
                     existing.setAssignee(input.getAssigneeId() == null ? null : assignee.orElse(null));
                     applyWriteRequest(existing, input);
 
-                    Request saved = requestRepository.save(existing);
-                    sseService.broadcast(requestRepository.findAll());
-                    return ResponseEntity.ok(toDto(saved));
+                    // Flush so the @Version bump is visible in the response and the
+                    // delta; the client sends this version back on its next update.
+                    Request saved = requestRepository.saveAndFlush(existing);
+                    rollupService.replace(previousContribution, RequestRollupService.contributionOf(saved));
+                    eventPublisher.publishEvent(RequestChangedEvent.updated(saved, previousHotel));
+                    return ResponseEntity.ok(RequestDtoMapper.toDto(saved));
                 })
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
@@ -252,7 +384,8 @@ public class RequestController {
             return ResponseEntity.notFound().build();
         }
         requestRepository.deleteById(id);
-        sseService.broadcast(requestRepository.findAll());
+        rollupService.replace(RequestRollupService.contributionOf(request.get()), null);
+        eventPublisher.publishEvent(RequestChangedEvent.deleted(request.get()));
         return ResponseEntity.noContent().build();
     }
 
@@ -294,58 +427,6 @@ public class RequestController {
         request.setComments(input.getComments());
     }
 
-    private RequestDto toDto(Request request) {
-        HotelSummaryDto hotelDto = null;
-        if (request.getHotel() != null) {
-            Hotel hotel = request.getHotel();
-            hotelDto = new HotelSummaryDto(
-                    hotel.getId(),
-                    hotel.getName(),
-                    hotel.getCode(),
-                    hotel.getCity(),
-                    hotel.getCountry()
-            );
-        }
-
-        RoomSummaryDto roomDto = null;
-        if (request.getRoom() != null) {
-            Room room = request.getRoom();
-            roomDto = new RoomSummaryDto(
-                    room.getId(),
-                    room.getNumber(),
-                    room.getFloor()
-            );
-        }
-
-        AppUserSummaryDto assigneeDto = null;
-        if (request.getAssignee() != null) {
-            AppUser assignee = request.getAssignee();
-            assigneeDto = new AppUserSummaryDto(
-                    assignee.getId(),
-                    assignee.getName(),
-                    assignee.getEmployeeRole(),
-                    assignee.getAccessRole(),
-                    Boolean.TRUE.equals(assignee.getActive())
-            );
-        }
-
-        return new RequestDto(
-                request.getId(),
-            request.getVersion(),
-                hotelDto,
-                roomDto,
-                request.getType(),
-                request.getMessage(),
-                request.getStatus(),
-                request.getCreatedAt(),
-                request.getAcceptedAt(),
-                request.getCompletedAt(),
-                assigneeDto,
-                request.getRating(),
-                request.getComments()
-        );
-    }
-
     private GuestRoomContextDto toGuestRoomContext(Room room) {
         HotelGroupSummaryDto hotelGroupDto = null;
         if (room.getHotel() != null && room.getHotel().getHotelGroup() != null) {
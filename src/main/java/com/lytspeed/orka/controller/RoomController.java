@@ -7,6 +7,7 @@ import com.lytspeed.orka.entity.Hotel;
 import com.lytspeed.orka.entity.Room;
 import com.lytspeed.orka.repository.HotelRepository;
 import com.lytspeed.orka.repository.RoomRepository;
+import com.lytspeed.orka.repository.ScopeSpecifications;
 import com.lytspeed.orka.security.AccessScopeService;
 import com.lytspeed.orka.security.AuthenticatedAppUserService;
 import org.springframework.http.ResponseEntity;
@@ -44,7 +45,7 @@ public class RoomController {
     @GetMapping
     public List<RoomDto> getAll() {
         AppUser actor = authenticatedAppUserService.requireCurrentUser();
-        return accessScopeService.filterRooms(actor, roomRepository.findAll()).stream()
+        return roomRepository.findAll(ScopeSpecifications.rooms(accessScopeService.scopeOf(actor))).stream()
                 .map(this::toDto)
                 .collect(Collectors.toList());
     }
@@ -3,12 +3,14 @@ package com.lytspeed.orka.dto;
 import com.lytspeed.orka.entity.enums.AccessRole;
 import com.lytspeed.orka.entity.enums.AppUserStatus;
 import com.lytspeed.orka.entity.enums.EmployeeRole;
+import com.lytspeed.orka.entity.enums.RequestType;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.time.LocalDateTime;
+import java.util.Set;
 
 @Getter
 @Setter
@@ -31,4 +33,5 @@ public class AppUserDto {
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     private Boolean fcmEnabled;
+    private Set<RequestType> pushRequestTypes;
 }
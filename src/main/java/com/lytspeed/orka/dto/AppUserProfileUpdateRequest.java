@@ -1,9 +1,12 @@
 package com.lytspeed.orka.dto;
 
+import com.lytspeed.orka.entity.enums.RequestType;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import java.util.Set;
+
 @Getter
 @Setter
 @NoArgsConstructor
@@ -11,4 +14,5 @@ public class AppUserProfileUpdateRequest {
     private String name;
     private String phone;
     private Boolean fcmEnabled;
+    private Set<RequestType> pushRequestTypes;
 }
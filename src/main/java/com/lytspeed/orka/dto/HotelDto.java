@@ -16,4 +16,5 @@ public class HotelDto {
     private String city;
     private String country;
     private HotelGroupSummaryDto hotelGroup;
+    private Integer pushCoalesceSeconds;
 }
@@ -0,0 +1,44 @@
+package com.lytspeed.orka.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Keyset position in the request listing, ordered by (createdAt desc nulls last, id desc).
+ * Serialised as an opaque base64url token: {@code <createdAt ISO or empty>|<id>}.
+ */
+public record RequestCursor(LocalDateTime createdAt, Long id) {
+
+    public static RequestCursor after(RequestDto request) {
+        return new RequestCursor(request.getCreatedAt(), request.getId());
+    }
+
+    public String encode() {
+        String raw = (createdAt == null ? "" : createdAt.toString()) + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Empty if the token is missing or malformed. */
+    public static Optional<RequestCursor> decode(String token) {
+        if (token == null || token.isBlank()) {
+            return Optional.empty();
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token.trim()), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            if (separator < 0) {
+                return Optional.empty();
+            }
+            String createdAt = raw.substring(0, separator);
+            return Optional.of(new RequestCursor(
+                    createdAt.isEmpty() ? null : LocalDateTime.parse(createdAt),
+                    Long.valueOf(raw.substring(separator + 1))
+            ));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.lytspeed.orka.dto;
+
+import com.lytspeed.orka.entity.AppUser;
+import com.lytspeed.orka.entity.Hotel;
+import com.lytspeed.orka.entity.Request;
+import com.lytspeed.orka.entity.Room;
+
+/**
+ * Maps a {@link Request} entity to its API representation. Shared by the REST endpoints and
+ * the change events, so a request looks the same on the wire whichever path delivered it.
+ */
+public final class RequestDtoMapper {
+
+    private RequestDtoMapper() {
+    }
+
+    public static RequestDto toDto(Request request) {
+        HotelSummaryDto hotelDto = null;
+        if (request.getHotel() != null) {
+            Hotel hotel = request.getHotel();
+            hotelDto = new HotelSummaryDto(
+                    hotel.getId(),
+                    hotel.getName(),
+                    hotel.getCode(),
+                    hotel.getCity(),
+                    hotel.getCountry()
+            );
+        }
+
+        RoomSummaryDto roomDto = null;
+        if (request.getRoom() != null) {
+            Room room = request.getRoom();
+            roomDto = new RoomSummaryDto(
+                    room.getId(),
+                    room.getNumber(),
+                    room.getFloor()
+            );
+        }
+
+        AppUserSummaryDto assigneeDto = null;
+        if (request.getAssignee() != null) {
+            AppUser assignee = request.getAssignee();
+            assigneeDto = new AppUserSummaryDto(
+                    assignee.getId(),
+                    assignee.getName(),
+                    assignee.getEmployeeRole(),
+                    assignee.getAccessRole(),
+                    Boolean.TRUE.equals(assignee.getActive())
+            );
+        }
+
+        return new RequestDto(
+                request.getId(),
+                request.getVersion(),
+                hotelDto,
+                roomDto,
+                request.getType(),
+                request.getMessage(),
+                request.getStatus(),
+                request.getCreatedAt(),
+                request.getAcceptedAt(),
+                request.getCompletedAt(),
+                assigneeDto,
+                request.getRating(),
+                request.getComments()
+        );
+    }
+}
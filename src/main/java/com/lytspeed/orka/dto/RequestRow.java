@@ -0,0 +1,64 @@
+package com.lytspeed.orka.dto;
+
+import com.lytspeed.orka.entity.enums.AccessRole;
+import com.lytspeed.orka.entity.enums.EmployeeRole;
+import com.lytspeed.orka.entity.enums.RequestStatus;
+import com.lytspeed.orka.entity.enums.RequestType;
+
+import java.time.LocalDateTime;
+
+/**
+ * Flat, read-only row selected straight from the requests / hotels / rooms / app_users join.
+ * Built by a JPQL constructor expression, so no managed entities are hydrated for list reads.
+ */
+public record RequestRow(
+        Long id,
+        Long version,
+        Long hotelId,
+        String hotelName,
+        String hotelCode,
+        String hotelCity,
+        String hotelCountry,
+        Long hotelGroupId,
+        Long roomId,
+        String roomNumber,
+        Integer roomFloor,
+        RequestType type,
+        String message,
+        RequestStatus status,
+        LocalDateTime createdAt,
+        LocalDateTime acceptedAt,
+        LocalDateTime completedAt,
+        Long assigneeId,
+        String assigneeName,
+        EmployeeRole assigneeEmployeeRole,
+        AccessRole assigneeAccessRole,
+        Boolean assigneeActive,
+        Integer rating,
+        String comments
+) {
+
+    public RequestDto toDto() {
+        return new RequestDto(
+                id,
+                version,
+                new HotelSummaryDto(hotelId, hotelName, hotelCode, hotelCity, hotelCountry),
+                new RoomSummaryDto(roomId, roomNumber, roomFloor),
+                type,
+                message,
+                status,
+                createdAt,
+                acceptedAt,
+                completedAt,
+                assigneeId == null ? null : new AppUserSummaryDto(
+                        assigneeId,
+                        assigneeName,
+                        assigneeEmployeeRole,
+                        assigneeAccessRole,
+                        Boolean.TRUE.equals(assigneeActive)
+                ),
+                rating,
+                comments
+        );
+    }
+}
@@ -0,0 +1,29 @@
+package com.lytspeed.orka.dto;
+
+import com.lytspeed.orka.entity.enums.RequestStatus;
+import com.lytspeed.orka.entity.enums.RequestType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class RequestSearchRequest {
+    private RequestStatus status;
+    private RequestType type;
+    private Long hotelId;
+    private Long roomId;
+    private Long assigneeId;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime createdFrom;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime createdTo;
+    private String cursor;
+    private Integer limit;
+}
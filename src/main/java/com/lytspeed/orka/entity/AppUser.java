@@ -3,6 +3,7 @@ package com.lytspeed.orka.entity;
 import com.lytspeed.orka.entity.enums.AccessRole;
 import com.lytspeed.orka.entity.enums.AppUserStatus;
 import com.lytspeed.orka.entity.enums.EmployeeRole;
+import com.lytspeed.orka.entity.enums.RequestType;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -10,6 +11,8 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.Set;
 
 @Entity
 @Table(
@@ -79,6 +82,13 @@ public class AppUser {
     @Column(name = "fcm_enabled", nullable = false, columnDefinition = "boolean default true")
     private Boolean fcmEnabled = Boolean.TRUE;
 
+    /** Request types pushed to this user on top of those routed to their employee role. */
+    @ElementCollection
+    @CollectionTable(name = "app_user_push_request_types", joinColumns = @JoinColumn(name = "app_user_id"))
+    @Enumerated(EnumType.STRING)
+    @Column(name = "request_type", nullable = false)
+    private Set<RequestType> pushRequestTypes = EnumSet.noneOf(RequestType.class);
+
     @PrePersist
     void prePersist() {
         LocalDateTime now = LocalDateTime.now();
@@ -0,0 +1,64 @@
+package com.lytspeed.orka.entity;
+
+import com.lytspeed.orka.entity.enums.RequestStatus;
+import com.lytspeed.orka.entity.enums.RequestType;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Cold copy of a closed request, moved out of {@code requests} by the archive job.
+ * Keeps the original id; associations are stored as plain ids so the archive never
+ * joins back into the live tables.
+ */
+@Entity
+@Table(name = "archived_requests")
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ArchivedRequest {
+
+    @Id
+    private Long id;
+
+    @Column(name = "hotel_id", nullable = false)
+    private Long hotelId;
+
+    @Column(name = "hotel_group_id")
+    private Long hotelGroupId;
+
+    @Column(name = "room_id", nullable = false)
+    private Long roomId;
+
+    @Enumerated(EnumType.STRING)
+    private RequestType type;
+
+    @Column(length = 2000)
+    private String message;
+
+    @Enumerated(EnumType.STRING)
+    private RequestStatus status;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime acceptedAt;
+    private LocalDateTime completedAt;
+
+    @Column(name = "assignee_app_user_id")
+    private Long assigneeId;
+
+    @Column(name = "guest_session_id")
+    private Long guestSessionId;
+
+    private Integer rating;
+
+    @Column(length = 2000)
+    private String comments;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+}
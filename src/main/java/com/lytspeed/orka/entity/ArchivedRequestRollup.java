@@ -0,0 +1,62 @@
+package com.lytspeed.orka.entity;
+
+import com.lytspeed.orka.entity.enums.RequestStatus;
+import com.lytspeed.orka.entity.enums.RequestType;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+/**
+ * Counters for archived requests, per hotel, room, type, status and creation day, so
+ * report totals and averages still include rows that left the hot table. Minute sums
+ * are per-request whole minutes, matching how the overview averages live rows.
+ */
+@Entity
+@Table(name = "archived_request_rollups")
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ArchivedRequestRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "hotel_id", nullable = false)
+    private Long hotelId;
+
+    @Column(name = "hotel_group_id")
+    private Long hotelGroupId;
+
+    @Column(name = "room_id", nullable = false)
+    private Long roomId;
+
+    @Enumerated(EnumType.STRING)
+    private RequestType type;
+
+    @Enumerated(EnumType.STRING)
+    private RequestStatus status;
+
+    @Column(name = "created_day")
+    private LocalDate createdDay;
+
+    @Column(name = "request_count", nullable = false)
+    private Long requestCount;
+
+    @Column(name = "accept_minutes_sum", nullable = false)
+    private Long acceptMinutesSum;
+
+    @Column(name = "accept_count", nullable = false)
+    private Long acceptCount;
+
+    @Column(name = "complete_minutes_sum", nullable = false)
+    private Long completeMinutesSum;
+
+    @Column(name = "complete_count", nullable = false)
+    private Long completeCount;
+}
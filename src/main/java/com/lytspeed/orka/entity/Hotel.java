@@ -27,6 +27,13 @@ public class Hotel {
     @JoinColumn(name = "hotel_group_id")
     private HotelGroup hotelGroup;
 
+    /**
+     * New-request pushes arriving within this many seconds of each other are merged into one
+     * push per device; null or 0 sends each one straight away.
+     */
+    @Column(name = "push_coalesce_seconds")
+    private Integer pushCoalesceSeconds;
+
 
 
     // getters/setters
@@ -0,0 +1,80 @@
+package com.lytspeed.orka.entity;
+
+import com.lytspeed.orka.entity.enums.OutboxStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * A push notification waiting to be delivered. Written in the same transaction as the
+ * change it announces and deleted once delivered, so a push is never lost to a crash
+ * between commit and send.
+ *
+ * {@code tokens} is null until the first attempt resolves the hotel's recipients; after a
+ * partial failure it holds only the tokens still to retry, one per line.
+ *
+ * Rows with a {@code coalesceKey} may be merged with other unsent rows of the same hotel
+ * and key before their first attempt.
+ */
+@Entity
+@Table(name = "notification_outbox")
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class NotificationOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "hotel_id", nullable = false)
+    private Long hotelId;
+
+    @Column(name = "hotel_group_id")
+    private Long hotelGroupId;
+
+    private String title;
+
+    @Column(length = 1000)
+    private String body;
+
+    /** FCM data payload as a JSON object of strings. */
+    @Column(length = 4000)
+    private String data;
+
+    @Column(columnDefinition = "text")
+    private String tokens;
+
+    @Column(name = "coalesce_key", length = 64)
+    private String coalesceKey;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OutboxStatus status = OutboxStatus.PENDING;
+
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    void prePersist() {
+        LocalDateTime now = LocalDateTime.now();
+        createdAt = now;
+        if (nextAttemptAt == null) {
+            nextAttemptAt = now;
+        }
+    }
+}
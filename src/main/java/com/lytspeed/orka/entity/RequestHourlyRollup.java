@@ -0,0 +1,65 @@
+package com.lytspeed.orka.entity;
+
+import com.lytspeed.orka.entity.enums.RequestStatus;
+import com.lytspeed.orka.entity.enums.RequestType;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Request metrics per hotel, creation hour, type and current status. Maintained as
+ * requests change (archived requests stay counted), so long-range reports never touch
+ * raw rows. Minute sums are per-request whole minutes.
+ */
+@Entity
+@Table(name = "request_hourly_rollups")
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class RequestHourlyRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "hotel_id", nullable = false)
+    private Long hotelId;
+
+    @Column(name = "hotel_group_id")
+    private Long hotelGroupId;
+
+    @Column(name = "bucket_hour", nullable = false)
+    private LocalDateTime bucketHour;
+
+    @Enumerated(EnumType.STRING)
+    private RequestType type;
+
+    @Enumerated(EnumType.STRING)
+    private RequestStatus status;
+
+    @Column(name = "request_count", nullable = false)
+    private Long requestCount;
+
+    @Column(name = "accept_minutes_sum", nullable = false)
+    private Long acceptMinutesSum;
+
+    @Column(name = "accept_count", nullable = false)
+    private Long acceptCount;
+
+    @Column(name = "complete_minutes_sum", nullable = false)
+    private Long completeMinutesSum;
+
+    @Column(name = "complete_count", nullable = false)
+    private Long completeCount;
+
+    @Column(name = "rating_sum", nullable = false)
+    private Long ratingSum;
+
+    @Column(name = "rating_count", nullable = false)
+    private Long ratingCount;
+}
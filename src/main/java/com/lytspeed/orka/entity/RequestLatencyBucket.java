@@ -0,0 +1,46 @@
+package com.lytspeed.orka.entity;
+
+import com.lytspeed.orka.entity.enums.LatencyMetric;
+import com.lytspeed.orka.entity.enums.RequestType;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * One bucket of a {@link com.lytspeed.orka.model.LatencyHistogram} per hotel, request type
+ * and metric. Maintained as requests are accepted and completed (archived requests stay
+ * counted); percentiles for a group or all hotels come from summing buckets.
+ */
+@Entity
+@Table(name = "request_latency_buckets")
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class RequestLatencyBucket {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "hotel_id", nullable = false)
+    private Long hotelId;
+
+    @Column(name = "hotel_group_id")
+    private Long hotelGroupId;
+
+    @Enumerated(EnumType.STRING)
+    private RequestType type;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private LatencyMetric metric;
+
+    @Column(nullable = false)
+    private Integer bucket;
+
+    @Column(name = "sample_count", nullable = false)
+    private Long sampleCount;
+}
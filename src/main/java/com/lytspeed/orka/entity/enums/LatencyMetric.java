@@ -0,0 +1,6 @@
+package com.lytspeed.orka.entity.enums;
+
+public enum LatencyMetric {
+    ACCEPT,
+    COMPLETE
+}
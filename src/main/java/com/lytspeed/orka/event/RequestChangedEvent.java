@@ -0,0 +1,99 @@
+package com.lytspeed.orka.event;
+
+import com.lytspeed.orka.dto.RequestDto;
+import com.lytspeed.orka.dto.RequestDtoMapper;
+import com.lytspeed.orka.entity.Hotel;
+import com.lytspeed.orka.entity.Request;
+import com.lytspeed.orka.security.AccessScope;
+
+/**
+ * Published by {@code RequestController} for every create/update/delete of a request.
+ *
+ * Listeners run after the surrounding transaction commits, on their own executors, so
+ * the event is captured as an immutable snapshot at publish time: the DTO plus the
+ * hotel ids needed to decide which scopes see the change. It can be queued, merged and
+ * replayed without touching the (by then detached) entity.
+ * {@code previousHotelId}/{@code previousHotelGroupId} are set when an update may have
+ * moved the request to another hotel.
+ */
+public record RequestChangedEvent(
+        Type type,
+        RequestDto request,
+        Long hotelId,
+        Long hotelGroupId,
+        Long previousHotelId,
+        Long previousHotelGroupId
+) {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    public static RequestChangedEvent created(Request request) {
+        return of(Type.CREATED, request, null);
+    }
+
+    public static RequestChangedEvent updated(Request request, Hotel previousHotel) {
+        return of(Type.UPDATED, request, previousHotel);
+    }
+
+    public static RequestChangedEvent deleted(Request request) {
+        return of(Type.DELETED, request, null);
+    }
+
+    private static RequestChangedEvent of(Type type, Request request, Hotel previousHotel) {
+        Hotel hotel = request.getHotel();
+        return new RequestChangedEvent(
+                type,
+                RequestDtoMapper.toDto(request),
+                hotel == null ? null : hotel.getId(),
+                hotel == null || hotel.getHotelGroup() == null ? null : hotel.getHotelGroup().getId(),
+                previousHotel == null ? null : previousHotel.getId(),
+                previousHotel == null || previousHotel.getHotelGroup() == null ? null : previousHotel.getHotelGroup().getId()
+        );
+    }
+
+    public Long requestId() {
+        return request.getId();
+    }
+
+    /** The change as seen by the given scope, or null if the scope is not affected. */
+    public Type typeFor(AccessScope scope) {
+        if (scope.covers(hotelId, hotelGroupId)) {
+            return type;
+        }
+        if (scope.covers(previousHotelId, previousHotelGroupId)) {
+            // The request moved out of this scope.
+            return Type.DELETED;
+        }
+        return null;
+    }
+
+    /**
+     * Folds a later change to the same request into this one, keeping the latest state
+     * and the earliest previous hotel. Returns null when the two cancel out
+     * (created and deleted within the same window).
+     */
+    public RequestChangedEvent followedBy(RequestChangedEvent next) {
+        if (type == Type.CREATED) {
+            if (next.type == Type.DELETED) {
+                return null;
+            }
+            return new RequestChangedEvent(Type.CREATED, next.request, next.hotelId, next.hotelGroupId, null, null);
+        }
+        if (type == Type.UPDATED && next.type != Type.CREATED) {
+            boolean hasPrevious = previousHotelId != null;
+            return new RequestChangedEvent(
+                    next.type,
+                    next.request,
+                    next.hotelId,
+                    next.hotelGroupId,
+                    hasPrevious ? previousHotelId : next.previousHotelId,
+                    hasPrevious ? previousHotelGroupId : next.previousHotelGroupId
+            );
+        }
+        return next;
+    }
+}
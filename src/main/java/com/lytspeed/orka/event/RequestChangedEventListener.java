@@ -0,0 +1,66 @@
+package com.lytspeed.orka.event;
+
+import com.lytspeed.orka.service.NotificationOutboxService;
+import com.lytspeed.orka.service.ReportCache;
+import com.lytspeed.orka.service.RequestBoard;
+import com.lytspeed.orka.service.RequestSseService;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Fans request changes out to the request board, SSE clients, cached reports and the push
+ * notification outbox.
+ *
+ * Broadcasts and report invalidation run only after the publishing transaction commits, so
+ * a rolled-back write never reaches a dashboard. Broadcasts run on their own executor so the
+ * HTTP response only pays for the database write; report invalidation is a map update and
+ * runs inline, so the writer's next report read already sees it. Pushes are written to the
+ * outbox before commit, as part of the same transaction.
+ */
+@Component
+public class RequestChangedEventListener {
+
+    private final RequestBoard requestBoard;
+    private final RequestSseService sseService;
+    private final NotificationOutboxService notificationOutboxService;
+    private final ReportCache reportCache;
+
+    public RequestChangedEventListener(
+            RequestBoard requestBoard,
+            RequestSseService sseService,
+            NotificationOutboxService notificationOutboxService,
+            ReportCache reportCache
+    ) {
+        this.requestBoard = requestBoard;
+        this.sseService = sseService;
+        this.notificationOutboxService = notificationOutboxService;
+        this.reportCache = reportCache;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void invalidateReports(RequestChangedEvent event) {
+        reportCache.invalidate(event.hotelId(), event.hotelGroupId());
+        reportCache.invalidate(event.previousHotelId(), event.previousHotelGroupId());
+    }
+
+    @Async("requestEventExecutor")
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void broadcast(RequestChangedEvent event) {
+        // Board first: a snapshot taken after a delta is sequenced must already contain it.
+        requestBoard.apply(event);
+        sseService.publish(event);
+    }
+
+    /**
+     * Runs inside the publishing transaction, so the push is queued exactly when the
+     * request is committed; delivery happens later from the outbox.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void enqueueNotifications(RequestChangedEvent event) {
+        if (event.type() == RequestChangedEvent.Type.CREATED) {
+            notificationOutboxService.enqueueNewRequest(event);
+        }
+    }
+}
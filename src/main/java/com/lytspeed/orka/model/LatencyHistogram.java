@@ -0,0 +1,80 @@
+package com.lytspeed.orka.model;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Log-linear histogram of latencies in whole minutes, HDR-histogram style with three
+ * sub-bucket bits: values below 8 get their own bucket, larger values share a bucket with
+ * everything within 12.5% of them. Bucket indexes are stable, so histograms stored per
+ * hotel and request type merge by adding counts bucket by bucket.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private final TreeMap<Integer, Long> counts = new TreeMap<>();
+    private long totalCount;
+
+    /** Bucket index for a latency; negative values (clock skew) count as zero. */
+    public static int bucketOf(long minutes) {
+        long value = Math.max(0, minutes);
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) ((value >> shift) & (SUB_BUCKETS - 1));
+        return SUB_BUCKETS + shift * SUB_BUCKETS + subBucket;
+    }
+
+    /** Largest latency that falls into {@code bucket}. */
+    public static long highestValueOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+        long lowest = (long) (SUB_BUCKETS + (bucket - SUB_BUCKETS) % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    public void add(int bucket, long count) {
+        if (count == 0) {
+            return;
+        }
+        counts.merge(bucket, count, Long::sum);
+        totalCount += count;
+    }
+
+    public void record(long minutes) {
+        add(bucketOf(minutes), 1);
+    }
+
+    public void merge(LatencyHistogram other) {
+        other.counts.forEach(this::add);
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * Latency at the given percentile (0–100), reported as the highest value of the bucket
+     * that holds it; null when the histogram is empty.
+     */
+    public Long percentile(double percentile) {
+        if (totalCount <= 0) {
+            return null;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * totalCount));
+        long seen = 0;
+        for (Map.Entry<Integer, Long> entry : counts.entrySet()) {
+            seen += entry.getValue();
+            if (seen >= rank) {
+                return highestValueOf(entry.getKey());
+            }
+        }
+        return highestValueOf(counts.lastKey());
+    }
+}
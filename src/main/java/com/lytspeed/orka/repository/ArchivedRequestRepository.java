@@ -0,0 +1,30 @@
+package com.lytspeed.orka.repository;
+
+import com.lytspeed.orka.entity.ArchivedRequest;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+public interface ArchivedRequestRepository extends JpaRepository<ArchivedRequest, Long> {
+
+    /** Copies the given live requests into the archive in one statement. */
+    @Modifying
+    @Query(value = """
+            insert into archived_requests (
+                id, hotel_id, hotel_group_id, room_id, type, message, status,
+                created_at, accepted_at, completed_at, assignee_app_user_id,
+                guest_session_id, rating, comments, archived_at
+            )
+            select r.id, r.hotel_id, h.hotel_group_id, r.room_id, r.type, r.message, r.status,
+                   r.created_at, r.accepted_at, r.completed_at, r.assignee_app_user_id,
+                   r.guest_session_id, r.rating, r.comments, :archivedAt
+            from requests r
+            join hotels h on h.id = r.hotel_id
+            where r.id in (:ids)
+            """, nativeQuery = true)
+    int copyFromRequests(@Param("ids") Collection<Long> ids, @Param("archivedAt") LocalDateTime archivedAt);
+}
@@ -0,0 +1,41 @@
+package com.lytspeed.orka.repository;
+
+import com.lytspeed.orka.entity.ArchivedRequestRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+
+public interface ArchivedRequestRollupRepository extends JpaRepository<ArchivedRequestRollup, Long> {
+
+    /**
+     * Adds the given live requests to the rollup counters. Minutes are truncated per
+     * request, the same way {@code Duration.toMinutes} does for live rows.
+     */
+    @Modifying
+    @Query(value = """
+            insert into archived_request_rollups (
+                hotel_id, hotel_group_id, room_id, type, status, created_day, request_count,
+                accept_minutes_sum, accept_count, complete_minutes_sum, complete_count
+            )
+            select r.hotel_id, h.hotel_group_id, r.room_id, r.type, r.status, cast(r.created_at as date),
+                   count(*),
+                   coalesce(sum(cast(trunc(extract(epoch from (r.accepted_at - r.created_at)) / 60) as bigint)), 0),
+                   count(r.accepted_at - r.created_at),
+                   coalesce(sum(cast(trunc(extract(epoch from (r.completed_at - r.accepted_at)) / 60) as bigint)), 0),
+                   count(r.completed_at - r.accepted_at)
+            from requests r
+            join hotels h on h.id = r.hotel_id
+            where r.id in (:ids)
+            group by r.hotel_id, h.hotel_group_id, r.room_id, r.type, r.status, cast(r.created_at as date)
+            on conflict (hotel_id, room_id, type, status, created_day) do update set
+                request_count = archived_request_rollups.request_count + excluded.request_count,
+                accept_minutes_sum = archived_request_rollups.accept_minutes_sum + excluded.accept_minutes_sum,
+                accept_count = archived_request_rollups.accept_count + excluded.accept_count,
+                complete_minutes_sum = archived_request_rollups.complete_minutes_sum + excluded.complete_minutes_sum,
+                complete_count = archived_request_rollups.complete_count + excluded.complete_count
+            """, nativeQuery = true)
+    int addFromRequests(@Param("ids") Collection<Long> ids);
+}
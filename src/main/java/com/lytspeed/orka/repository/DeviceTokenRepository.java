@@ -1,8 +1,18 @@
 package com.lytspeed.orka.repository;
 
 import com.lytspeed.orka.entity.DeviceToken;
+import com.lytspeed.orka.entity.enums.AccessRole;
+import com.lytspeed.orka.entity.enums.AppUserStatus;
+import com.lytspeed.orka.entity.enums.EmployeeRole;
+import com.lytspeed.orka.entity.enums.RequestType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -10,4 +20,123 @@ public interface DeviceTokenRepository extends JpaRepository<DeviceToken, Long>
     Optional<DeviceToken> findByFcmToken(String fcmToken);
     List<DeviceToken> findByAppUserIdAndActiveTrue(Long appUserId);
     List<DeviceToken> findByAppUserAssignedHotelIdAndActiveTrue(Long hotelId);
+
+    /**
+     * Active tokens of users with push enabled who hold one of {@code hotelRoles} or
+     * {@code employeeRoles} in the hotel, one of {@code groupRoles} in its group, or one of
+     * {@code globalRoles} anywhere.
+     * Each branch is served by its own app_users index and the tokens by the partial
+     * active-token index, so the cost follows the recipients, not the token table.
+     */
+    @Query("""
+            select distinct t.fcmToken from DeviceToken t join t.appUser u
+            where t.active = true
+              and u.status = :status
+              and u.fcmEnabled = true
+              and ((u.assignedHotel.id = :hotelId and (u.accessRole in :hotelRoles or u.employeeRole in :employeeRoles))
+                or (u.assignedHotelGroup.id = :hotelGroupId and u.accessRole in :groupRoles)
+                or u.accessRole in :globalRoles)
+            """)
+    List<String> findRecipientTokens(
+            @Param("hotelId") Long hotelId,
+            @Param("hotelGroupId") Long hotelGroupId,
+            @Param("status") AppUserStatus status,
+            @Param("hotelRoles") Collection<AccessRole> hotelRoles,
+            @Param("employeeRoles") Collection<EmployeeRole> employeeRoles,
+            @Param("groupRoles") Collection<AccessRole> groupRoles,
+            @Param("globalRoles") Collection<AccessRole> globalRoles
+    );
+
+    /** Active tokens of the hotel's staff with push enabled who hold one of {@code employeeRoles}. */
+    @Query("""
+            select distinct t.fcmToken from DeviceToken t join t.appUser u
+            where t.active = true
+              and u.status = :status
+              and u.fcmEnabled = true
+              and u.assignedHotel.id = :hotelId
+              and u.employeeRole in :employeeRoles
+            """)
+    List<String> findStaffTokens(
+            @Param("hotelId") Long hotelId,
+            @Param("status") AppUserStatus status,
+            @Param("employeeRoles") Collection<EmployeeRole> employeeRoles
+    );
+
+    /**
+     * Active tokens of users with push enabled who opted in to {@code requestType} and work
+     * in the hotel, manage its group (one of {@code groupRoles}) or hold one of
+     * {@code globalRoles}.
+     */
+    @Query("""
+            select distinct t.fcmToken from DeviceToken t join t.appUser u
+            where t.active = true
+              and u.status = :status
+              and u.fcmEnabled = true
+              and :requestType member of u.pushRequestTypes
+              and (u.assignedHotel.id = :hotelId
+                or (u.assignedHotelGroup.id = :hotelGroupId and u.accessRole in :groupRoles)
+                or u.accessRole in :globalRoles)
+            """)
+    List<String> findOptInTokens(
+            @Param("hotelId") Long hotelId,
+            @Param("hotelGroupId") Long hotelGroupId,
+            @Param("status") AppUserStatus status,
+            @Param("requestType") RequestType requestType,
+            @Param("groupRoles") Collection<AccessRole> groupRoles,
+            @Param("globalRoles") Collection<AccessRole> globalRoles
+    );
+
+    /** Registers a token or moves an existing one to {@code appUserId}, reactivating it, in one statement. */
+    @Modifying
+    @Query(value = """
+            insert into device_tokens (app_user_id, fcm_token, platform, active, last_seen_at, created_at, updated_at)
+            values (:appUserId, :fcmToken, :platform, true, :now, :now, :now)
+            on conflict (fcm_token) do update
+            set app_user_id = excluded.app_user_id,
+                platform = excluded.platform,
+                active = true,
+                last_seen_at = excluded.last_seen_at,
+                updated_at = excluded.updated_at
+            """, nativeQuery = true)
+    int upsert(
+            @Param("appUserId") Long appUserId,
+            @Param("fcmToken") String fcmToken,
+            @Param("platform") String platform,
+            @Param("now") LocalDateTime now
+    );
+
+    /** Deactivates every still-active token in {@code fcmTokens}; returns how many changed. */
+    @Modifying
+    @Transactional
+    @Query("""
+            update DeviceToken t set t.active = false, t.lastSeenAt = :now, t.updatedAt = :now
+            where t.fcmToken in :fcmTokens and t.active = true
+            """)
+    int deactivateByFcmTokenIn(@Param("fcmTokens") Collection<String> fcmTokens, @Param("now") LocalDateTime now);
+
+    /** Deactivates up to {@code limit} active tokens not registered or refreshed since {@code cutoff}. */
+    @Modifying
+    @Query(value = """
+            update device_tokens set active = false, updated_at = :now
+            where id in (
+                select id from device_tokens
+                where active and last_seen_at < :cutoff
+                order by id
+                limit :limit
+            )
+            """, nativeQuery = true)
+    int deactivateStale(@Param("cutoff") LocalDateTime cutoff, @Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    /** Deletes up to {@code limit} tokens that have been inactive since before {@code cutoff}. */
+    @Modifying
+    @Query(value = """
+            delete from device_tokens
+            where id in (
+                select id from device_tokens
+                where not active and updated_at < :cutoff
+                order by id
+                limit :limit
+            )
+            """, nativeQuery = true)
+    int deleteInactive(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
 }
@@ -2,10 +2,11 @@ package com.lytspeed.orka.repository;
 
 import com.lytspeed.orka.entity.Hotel;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 
 import java.util.Optional;
 
-public interface HotelRepository extends JpaRepository<Hotel, Long> {
+public interface HotelRepository extends JpaRepository<Hotel, Long>, JpaSpecificationExecutor<Hotel> {
     boolean existsByCodeIgnoreCase(String code);
     Optional<Hotel> findByCodeIgnoreCase(String code);
 }
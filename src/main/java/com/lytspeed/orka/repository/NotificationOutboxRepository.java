@@ -0,0 +1,44 @@
+package com.lytspeed.orka.repository;
+
+import com.lytspeed.orka.entity.NotificationOutbox;
+import com.lytspeed.orka.entity.enums.OutboxStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutbox, Long> {
+
+    /**
+     * Due pending notifications, oldest first, locked for the calling dispatcher. Rows another
+     * instance is claiming right now are skipped rather than waited on.
+     */
+    @Query(value = """
+            select o.id from notification_outbox o
+            where o.status = 'PENDING'
+              and o.next_attempt_at <= :now
+            order by o.next_attempt_at
+            limit :limit
+            for update skip locked
+            """, nativeQuery = true)
+    List<Long> lockDueIds(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Modifying
+    @Query("delete from NotificationOutbox o where o.status = :status and o.createdAt < :cutoff")
+    int deleteByStatusCreatedBefore(@Param("status") OutboxStatus status, @Param("cutoff") LocalDateTime cutoff);
+
+    /** Unsent rows of a hotel that may be merged under {@code coalesceKey}, due or not, locked like {@link #lockDueIds}. */
+    @Query(value = """
+            select o.id from notification_outbox o
+            where o.status = 'PENDING'
+              and o.attempts = 0
+              and o.hotel_id = :hotelId
+              and o.coalesce_key = :coalesceKey
+            order by o.id
+            for update skip locked
+            """, nativeQuery = true)
+    List<Long> lockCoalescingIds(@Param("hotelId") Long hotelId, @Param("coalesceKey") String coalesceKey);
+}
@@ -0,0 +1,91 @@
+package com.lytspeed.orka.repository;
+
+import com.lytspeed.orka.entity.RequestHourlyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+public interface RequestHourlyRollupRepository extends JpaRepository<RequestHourlyRollup, Long> {
+
+    /** Adds a (possibly negative) delta to one rollup bucket. */
+    @Modifying
+    @Query(value = """
+            insert into request_hourly_rollups (
+                hotel_id, hotel_group_id, bucket_hour, type, status, request_count,
+                accept_minutes_sum, accept_count, complete_minutes_sum, complete_count,
+                rating_sum, rating_count
+            )
+            values (
+                :hotelId, :hotelGroupId, :bucketHour, :type, :status, :requestCount,
+                :acceptMinutesSum, :acceptCount, :completeMinutesSum, :completeCount,
+                :ratingSum, :ratingCount
+            )
+            on conflict (hotel_id, bucket_hour, type, status) do update set
+                request_count = request_hourly_rollups.request_count + excluded.request_count,
+                accept_minutes_sum = request_hourly_rollups.accept_minutes_sum + excluded.accept_minutes_sum,
+                accept_count = request_hourly_rollups.accept_count + excluded.accept_count,
+                complete_minutes_sum = request_hourly_rollups.complete_minutes_sum + excluded.complete_minutes_sum,
+                complete_count = request_hourly_rollups.complete_count + excluded.complete_count,
+                rating_sum = request_hourly_rollups.rating_sum + excluded.rating_sum,
+                rating_count = request_hourly_rollups.rating_count + excluded.rating_count
+            """, nativeQuery = true)
+    int add(
+            @Param("hotelId") Long hotelId,
+            @Param("hotelGroupId") Long hotelGroupId,
+            @Param("bucketHour") LocalDateTime bucketHour,
+            @Param("type") String type,
+            @Param("status") String status,
+            @Param("requestCount") long requestCount,
+            @Param("acceptMinutesSum") long acceptMinutesSum,
+            @Param("acceptCount") long acceptCount,
+            @Param("completeMinutesSum") long completeMinutesSum,
+            @Param("completeCount") long completeCount,
+            @Param("ratingSum") long ratingSum,
+            @Param("ratingCount") long ratingCount
+    );
+
+    /**
+     * Rebuilds every bucket from live and archived requests. The caller holds an
+     * exclusive lock on the table, so concurrent deltas apply after the rebuild.
+     */
+    @Modifying
+    @Query(value = """
+            insert into request_hourly_rollups (
+                hotel_id, hotel_group_id, bucket_hour, type, status, request_count,
+                accept_minutes_sum, accept_count, complete_minutes_sum, complete_count,
+                rating_sum, rating_count
+            )
+            select x.hotel_id, max(x.hotel_group_id), date_trunc('hour', x.created_at), x.type, x.status,
+                   count(*),
+                   coalesce(sum(cast(trunc(extract(epoch from (x.accepted_at - x.created_at)) / 60) as bigint)), 0),
+                   count(x.accepted_at),
+                   coalesce(sum(cast(trunc(extract(epoch from (x.completed_at - x.accepted_at)) / 60) as bigint)), 0),
+                   count(x.completed_at - x.accepted_at),
+                   coalesce(sum(x.rating), 0),
+                   count(x.rating)
+            from (
+                select r.hotel_id, h.hotel_group_id, r.created_at, r.accepted_at, r.completed_at,
+                       r.type, r.status, r.rating
+                from requests r
+                join hotels h on h.id = r.hotel_id
+                union all
+                select a.hotel_id, a.hotel_group_id, a.created_at, a.accepted_at, a.completed_at,
+                       a.type, a.status, a.rating
+                from archived_requests a
+            ) x
+            where x.created_at is not null
+            group by x.hotel_id, date_trunc('hour', x.created_at), x.type, x.status
+            """, nativeQuery = true)
+    int rebuildFromRequests();
+
+    @Modifying
+    @Query(value = "lock table request_hourly_rollups in exclusive mode", nativeQuery = true)
+    void lockExclusive();
+
+    @Modifying
+    @Query(value = "delete from request_hourly_rollups", nativeQuery = true)
+    int deleteAllRows();
+}
@@ -0,0 +1,57 @@
+package com.lytspeed.orka.repository;
+
+import com.lytspeed.orka.entity.RequestLatencyBucket;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.stream.Stream;
+
+public interface RequestLatencyBucketRepository extends JpaRepository<RequestLatencyBucket, Long> {
+
+    /** Adds a (possibly negative) number of samples to one histogram bucket. */
+    @Modifying
+    @Query(value = """
+            insert into request_latency_buckets (hotel_id, hotel_group_id, type, metric, bucket, sample_count)
+            values (:hotelId, :hotelGroupId, :type, :metric, :bucket, :sampleCount)
+            on conflict (hotel_id, type, metric, bucket) do update set
+                sample_count = request_latency_buckets.sample_count + excluded.sample_count
+            """, nativeQuery = true)
+    int add(
+            @Param("hotelId") Long hotelId,
+            @Param("hotelGroupId") Long hotelGroupId,
+            @Param("type") String type,
+            @Param("metric") String metric,
+            @Param("bucket") int bucket,
+            @Param("sampleCount") long sampleCount
+    );
+
+    /**
+     * Per-request accept and complete minutes for every accepted live or archived request:
+     * hotel_id, hotel_group_id, type, accept minutes, complete minutes (null until completed).
+     */
+    @Query(value = """
+            select x.hotel_id, x.hotel_group_id, x.type,
+                   cast(trunc(extract(epoch from (x.accepted_at - x.created_at)) / 60) as bigint),
+                   cast(trunc(extract(epoch from (x.completed_at - x.accepted_at)) / 60) as bigint)
+            from (
+                select r.hotel_id, h.hotel_group_id, r.type, r.created_at, r.accepted_at, r.completed_at
+                from requests r
+                join hotels h on h.id = r.hotel_id
+                union all
+                select a.hotel_id, a.hotel_group_id, a.type, a.created_at, a.accepted_at, a.completed_at
+                from archived_requests a
+            ) x
+            where x.created_at is not null and x.accepted_at is not null
+            """, nativeQuery = true)
+    Stream<Object[]> streamLatencies();
+
+    @Modifying
+    @Query(value = "lock table request_latency_buckets in exclusive mode", nativeQuery = true)
+    void lockExclusive();
+
+    @Modifying
+    @Query(value = "delete from request_latency_buckets", nativeQuery = true)
+    int deleteAllRows();
+}
@@ -0,0 +1,256 @@
+package com.lytspeed.orka.repository;
+
+import com.lytspeed.orka.entity.enums.LatencyMetric;
+import com.lytspeed.orka.entity.enums.RequestStatus;
+import com.lytspeed.orka.entity.enums.RequestType;
+import com.lytspeed.orka.security.AccessScope;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Aggregate queries behind {@code /api/reports/overview}. Every query groups in the
+ * database over the actor's scope and unions in the archive rollup counters, so the
+ * overview costs a handful of small result sets instead of loading every request.
+ *
+ * Durations are whole minutes truncated per request, the same as {@code Duration.toMinutes}.
+ */
+@Repository
+public class RequestReportRepository {
+
+    private static final String ACCEPT_MINUTES =
+            "cast(trunc(extract(epoch from (r.accepted_at - r.created_at)) / 60) as bigint)";
+    private static final String COMPLETE_MINUTES =
+            "cast(trunc(extract(epoch from (r.completed_at - r.accepted_at)) / 60) as bigint)";
+
+    private final EntityManager entityManager;
+
+    public RequestReportRepository(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /** Counts and duration sums per (status, type); totals, breakdowns and averages derive from these. */
+    public List<StatusTypeTotals> totalsByStatusAndType(AccessScope scope) {
+        String sql = "select status, type, sum(cnt), sum(accept_sum), sum(accept_cnt), sum(complete_sum), sum(complete_cnt)"
+                + " from ("
+                + "  select r.status as status, r.type as type, count(*) as cnt,"
+                + "         sum(" + ACCEPT_MINUTES + ") as accept_sum, count(r.accepted_at - r.created_at) as accept_cnt,"
+                + "         sum(" + COMPLETE_MINUTES + ") as complete_sum, count(r.completed_at - r.accepted_at) as complete_cnt"
+                + "  from requests r join hotels h on h.id = r.hotel_id"
+                + "  where " + scopeClause(scope, "r.hotel_id", "h.hotel_group_id")
+                + "  group by r.status, r.type"
+                + "  union all"
+                + "  select a.status, a.type, sum(a.request_count), sum(a.accept_minutes_sum), sum(a.accept_count),"
+                + "         sum(a.complete_minutes_sum), sum(a.complete_count)"
+                + "  from archived_request_rollups a"
+                + "  where " + hotelScopeClause(scope, "a.hotel_id")
+                + "  group by a.status, a.type"
+                + " ) x group by status, type";
+        return rows(sql, scope).stream()
+                .map(row -> new StatusTypeTotals(
+                        row[0] == null ? null : RequestStatus.valueOf(row[0].toString()),
+                        row[1] == null ? null : RequestType.valueOf(row[1].toString()),
+                        asLong(row[2]),
+                        asLong(row[3]),
+                        asLong(row[4]),
+                        asLong(row[5]),
+                        asLong(row[6])
+                ))
+                .toList();
+    }
+
+    /** The {@code limit} rooms with the most requests, highest first. */
+    public List<RoomCount> topRooms(AccessScope scope, int limit) {
+        String sql = "select rm.number, rm.floor, ranked.cnt from ("
+                + "  select x.room_id as room_id, sum(x.cnt) as cnt,"
+                + "         row_number() over (order by sum(x.cnt) desc, x.room_id) as rank_no"
+                + "  from ("
+                + "    select r.room_id as room_id, count(*) as cnt"
+                + "    from requests r join hotels h on h.id = r.hotel_id"
+                + "    where " + scopeClause(scope, "r.hotel_id", "h.hotel_group_id")
+                + "    group by r.room_id"
+                + "    union all"
+                + "    select a.room_id, sum(a.request_count)"
+                + "    from archived_request_rollups a"
+                + "    where " + hotelScopeClause(scope, "a.hotel_id")
+                + "    group by a.room_id"
+                + "  ) x group by x.room_id"
+                + " ) ranked join rooms rm on rm.id = ranked.room_id"
+                + " where ranked.rank_no <= :limit"
+                + " order by ranked.rank_no";
+        Query query = query(sql, scope).setParameter("limit", limit);
+        return results(query).stream()
+                .map(row -> new RoomCount(
+                        (String) row[0],
+                        row[1] == null ? null : ((Number) row[1]).intValue(),
+                        asLong(row[2])
+                ))
+                .toList();
+    }
+
+    /** Requests created per day in {@code [from, to)}; days without requests are absent. */
+    public List<DayCount> countsPerDay(AccessScope scope, LocalDate from, LocalDate to) {
+        String sql = "select created_day, sum(cnt) from ("
+                + "  select cast(r.created_at as date) as created_day, count(*) as cnt"
+                + "  from requests r join hotels h on h.id = r.hotel_id"
+                + "  where " + scopeClause(scope, "r.hotel_id", "h.hotel_group_id")
+                + "    and r.created_at >= :fromTime and r.created_at < :toTime"
+                + "  group by cast(r.created_at as date)"
+                + "  union all"
+                + "  select a.created_day, sum(a.request_count)"
+                + "  from archived_request_rollups a"
+                + "  where " + hotelScopeClause(scope, "a.hotel_id")
+                + "    and a.created_day >= :fromDay and a.created_day < :toDay"
+                + "  group by a.created_day"
+                + " ) x group by created_day";
+        Query query = query(sql, scope)
+                .setParameter("fromTime", from.atStartOfDay())
+                .setParameter("toTime", to.atStartOfDay())
+                .setParameter("fromDay", from)
+                .setParameter("toDay", to);
+        return results(query).stream()
+                .map(row -> new DayCount(asLocalDate(row[0]), asLong(row[1])))
+                .toList();
+    }
+
+    /** Sums of the hourly rollups per (status, type) for buckets in {@code [from, to)}. */
+    public List<RollupTotals> rollupTotals(AccessScope scope, LocalDateTime from, LocalDateTime to) {
+        String sql = "select u.status, u.type, sum(u.request_count), sum(u.accept_minutes_sum), sum(u.accept_count),"
+                + "       sum(u.complete_minutes_sum), sum(u.complete_count), sum(u.rating_sum), sum(u.rating_count)"
+                + " from request_hourly_rollups u"
+                + " where " + hotelScopeClause(scope, "u.hotel_id")
+                + "   and u.bucket_hour >= :fromHour and u.bucket_hour < :toHour"
+                + " group by u.status, u.type";
+        Query query = query(sql, scope)
+                .setParameter("fromHour", from)
+                .setParameter("toHour", to);
+        return results(query).stream()
+                .map(row -> new RollupTotals(
+                        row[0] == null ? null : RequestStatus.valueOf(row[0].toString()),
+                        row[1] == null ? null : RequestType.valueOf(row[1].toString()),
+                        asLong(row[2]),
+                        asLong(row[3]),
+                        asLong(row[4]),
+                        asLong(row[5]),
+                        asLong(row[6]),
+                        asLong(row[7]),
+                        asLong(row[8])
+                ))
+                .toList();
+    }
+
+    /** Requests per creation day from the hourly rollups, for buckets in {@code [from, to)}. */
+    public List<DayCount> rollupCountsPerDay(AccessScope scope, LocalDate from, LocalDate to) {
+        String sql = "select cast(u.bucket_hour as date) as created_day, sum(u.request_count)"
+                + " from request_hourly_rollups u"
+                + " where " + hotelScopeClause(scope, "u.hotel_id")
+                + "   and u.bucket_hour >= :fromHour and u.bucket_hour < :toHour"
+                + " group by cast(u.bucket_hour as date)";
+        Query query = query(sql, scope)
+                .setParameter("fromHour", from.atStartOfDay())
+                .setParameter("toHour", to.atStartOfDay());
+        return results(query).stream()
+                .map(row -> new DayCount(asLocalDate(row[0]), asLong(row[1])))
+                .toList();
+    }
+
+    /** Latency histogram buckets per (metric, type), summed over the hotels in scope. */
+    public List<LatencyBucketCount> latencyBuckets(AccessScope scope) {
+        String sql = "select b.metric, b.type, b.bucket, sum(b.sample_count)"
+                + " from request_latency_buckets b"
+                + " where " + hotelScopeClause(scope, "b.hotel_id")
+                + " group by b.metric, b.type, b.bucket";
+        return rows(sql, scope).stream()
+                .map(row -> new LatencyBucketCount(
+                        LatencyMetric.valueOf(row[0].toString()),
+                        row[1] == null ? null : RequestType.valueOf(row[1].toString()),
+                        ((Number) row[2]).intValue(),
+                        asLong(row[3])
+                ))
+                .toList();
+    }
+
+    private List<Object[]> rows(String sql, AccessScope scope) {
+        return results(query(sql, scope));
+    }
+
+    private Query query(String sql, AccessScope scope) {
+        Query query = entityManager.createNativeQuery(sql);
+        if (scope.level() == AccessScope.Level.HOTEL || scope.level() == AccessScope.Level.HOTEL_GROUP) {
+            query.setParameter("scopeId", scope.id());
+        }
+        return query;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object[]> results(Query query) {
+        return query.getResultList();
+    }
+
+    private static String scopeClause(AccessScope scope, String hotelColumn, String hotelGroupColumn) {
+        return switch (scope.level()) {
+            case ALL -> "1 = 1";
+            case HOTEL_GROUP -> hotelGroupColumn + " = :scopeId";
+            case HOTEL -> hotelColumn + " = :scopeId";
+            case NONE -> "1 = 0";
+        };
+    }
+
+    /**
+     * Scope on the hotel id alone, resolving a group to its current hotels. Rollup, histogram
+     * and archive rollup rows are keyed per hotel, so they follow a hotel that moves to
+     * another group.
+     */
+    private static String hotelScopeClause(AccessScope scope, String hotelColumn) {
+        if (scope.level() == AccessScope.Level.HOTEL_GROUP) {
+            return hotelColumn + " in (select g.id from hotels g where g.hotel_group_id = :scopeId)";
+        }
+        return scopeClause(scope, hotelColumn, null);
+    }
+
+    private static long asLong(Object value) {
+        return value == null ? 0L : ((Number) value).longValue();
+    }
+
+    private static LocalDate asLocalDate(Object value) {
+        return value instanceof Date date ? date.toLocalDate() : (LocalDate) value;
+    }
+
+    public record StatusTypeTotals(
+            RequestStatus status,
+            RequestType type,
+            long count,
+            long acceptMinutesSum,
+            long acceptCount,
+            long completeMinutesSum,
+            long completeCount
+    ) {
+    }
+
+    public record RollupTotals(
+            RequestStatus status,
+            RequestType type,
+            long count,
+            long acceptMinutesSum,
+            long acceptCount,
+            long completeMinutesSum,
+            long completeCount,
+            long ratingSum,
+            long ratingCount
+    ) {
+    }
+
+    public record LatencyBucketCount(LatencyMetric metric, RequestType type, int bucket, long count) {
+    }
+
+    public record RoomCount(String roomNumber, Integer floor, long count) {
+    }
+
+    public record DayCount(LocalDate day, long count) {
+    }
+}
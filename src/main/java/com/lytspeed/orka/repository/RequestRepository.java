@@ -2,9 +2,28 @@ package com.lytspeed.orka.repository;
 
 import com.lytspeed.orka.entity.Request;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
-public interface RequestRepository extends JpaRepository<Request, Long> {
-    List<Request> findByGuestSessionIdOrderByCreatedAtDesc(Long guestSessionId);
+/** List endpoints read through {@link RequestRowRepository} projections, not entities. */
+public interface RequestRepository extends JpaRepository<Request, Long>, JpaSpecificationExecutor<Request>,
+        RequestRowRepository {
+
+    /**
+     * Closed requests older than the cutoff, locked for the archive job. Rows locked by a
+     * concurrent writer are skipped rather than waited on.
+     */
+    @Query(value = """
+            select r.id from requests r
+            where r.status in ('COMPLETED', 'CANCELLED')
+              and coalesce(r.completed_at, r.created_at) < :cutoff
+            order by r.id
+            limit :limit
+            for update skip locked
+            """, nativeQuery = true)
+    List<Long> lockArchivableIds(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
 }
@@ -0,0 +1,35 @@
+package com.lytspeed.orka.repository;
+
+import com.lytspeed.orka.dto.RequestRow;
+import com.lytspeed.orka.dto.RequestSearchRequest;
+import com.lytspeed.orka.entity.Request;
+import com.lytspeed.orka.security.AccessScope;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Read-only projection queries for request lists. Rows come from a single joined SELECT
+ * and are never attached to the persistence context.
+ */
+public interface RequestRowRepository {
+
+    List<RequestRow> findRows(Specification<Request> spec, Sort sort);
+
+    List<RequestRow> findRows(Specification<Request> spec, Sort sort, int limit);
+
+    /**
+     * Streams matching rows through a forward-only cursor that fetches {@code fetchSize} rows
+     * per round trip. Must be consumed and closed inside a transaction.
+     */
+    Stream<RequestRow> streamRows(Specification<Request> spec, Sort sort, int fetchSize);
+
+    /**
+     * Streams archived requests matching the scope and filter (cursor and limit ignored),
+     * newest first, joined back to hotels, rooms and assignees for display fields.
+     * Archived rows carry no version. Same transaction rules as {@link #streamRows}.
+     */
+    Stream<RequestRow> streamArchivedRows(AccessScope scope, RequestSearchRequest filter, int fetchSize);
+}
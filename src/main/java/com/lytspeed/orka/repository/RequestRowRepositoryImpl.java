@@ -0,0 +1,144 @@
+package com.lytspeed.orka.repository;
+
+import com.lytspeed.orka.dto.RequestRow;
+import com.lytspeed.orka.dto.RequestSearchRequest;
+import com.lytspeed.orka.entity.AppUser;
+import com.lytspeed.orka.entity.Hotel;
+import com.lytspeed.orka.entity.Request;
+import com.lytspeed.orka.entity.Room;
+import com.lytspeed.orka.security.AccessScope;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+class RequestRowRepositoryImpl implements RequestRowRepository {
+
+    private final EntityManager entityManager;
+
+    RequestRowRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<RequestRow> findRows(Specification<Request> spec, Sort sort) {
+        return createQuery(spec, sort).getResultList();
+    }
+
+    @Override
+    public List<RequestRow> findRows(Specification<Request> spec, Sort sort, int limit) {
+        return createQuery(spec, sort).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public Stream<RequestRow> streamRows(Specification<Request> spec, Sort sort, int fetchSize) {
+        return streamed(createQuery(spec, sort), fetchSize).getResultStream();
+    }
+
+    @Override
+    public Stream<RequestRow> streamArchivedRows(AccessScope scope, RequestSearchRequest filter, int fetchSize) {
+        if (scope.level() == AccessScope.Level.NONE) {
+            return Stream.empty();
+        }
+        StringBuilder jpql = new StringBuilder("""
+                select new com.lytspeed.orka.dto.RequestRow(
+                    a.id, cast(null as Long), h.id, h.name, h.code, h.city, h.country, a.hotelGroupId,
+                    r.id, r.number, r.floor, a.type, a.message, a.status,
+                    a.createdAt, a.acceptedAt, a.completedAt,
+                    u.id, u.name, u.employeeRole, u.accessRole, u.active, a.rating, a.comments)
+                from ArchivedRequest a
+                join Hotel h on h.id = a.hotelId
+                join Room r on r.id = a.roomId
+                left join AppUser u on u.id = a.assigneeId
+                where 1 = 1""");
+        Map<String, Object> parameters = new HashMap<>();
+        if (scope.level() == AccessScope.Level.HOTEL_GROUP) {
+            condition(jpql, parameters, "a.hotelGroupId = :scopeId", "scopeId", scope.id());
+        } else if (scope.level() == AccessScope.Level.HOTEL) {
+            condition(jpql, parameters, "a.hotelId = :scopeId", "scopeId", scope.id());
+        }
+        condition(jpql, parameters, "a.status = :status", "status", filter.getStatus());
+        condition(jpql, parameters, "a.type = :type", "type", filter.getType());
+        condition(jpql, parameters, "a.hotelId = :hotelId", "hotelId", filter.getHotelId());
+        condition(jpql, parameters, "a.roomId = :roomId", "roomId", filter.getRoomId());
+        condition(jpql, parameters, "a.assigneeId = :assigneeId", "assigneeId", filter.getAssigneeId());
+        condition(jpql, parameters, "a.createdAt >= :createdFrom", "createdFrom", filter.getCreatedFrom());
+        condition(jpql, parameters, "a.createdAt < :createdTo", "createdTo", filter.getCreatedTo());
+        jpql.append(" order by a.createdAt desc nulls last, a.id desc");
+
+        TypedQuery<RequestRow> query = entityManager.createQuery(jpql.toString(), RequestRow.class);
+        parameters.forEach(query::setParameter);
+        return streamed(query, fetchSize).getResultStream();
+    }
+
+    private static void condition(StringBuilder jpql, Map<String, Object> parameters, String clause, String name, Object value) {
+        if (value != null) {
+            jpql.append(" and ").append(clause);
+            parameters.put(name, value);
+        }
+    }
+
+    private static TypedQuery<RequestRow> streamed(TypedQuery<RequestRow> query, int fetchSize) {
+        return query
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true);
+    }
+
+    private TypedQuery<RequestRow> createQuery(Specification<Request> spec, Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<RequestRow> query = cb.createQuery(RequestRow.class);
+        Root<Request> root = query.from(Request.class);
+        Join<Request, Hotel> hotel = root.join("hotel");
+        Join<Request, Room> room = root.join("room");
+        Join<Request, AppUser> assignee = root.join("assignee", JoinType.LEFT);
+
+        query.select(cb.construct(
+                RequestRow.class,
+                root.get("id"),
+                root.get("version"),
+                hotel.get("id"),
+                hotel.get("name"),
+                hotel.get("code"),
+                hotel.get("city"),
+                hotel.get("country"),
+                hotel.get("hotelGroup").get("id"),
+                room.get("id"),
+                room.get("number"),
+                room.get("floor"),
+                root.get("type"),
+                root.get("message"),
+                root.get("status"),
+                root.get("createdAt"),
+                root.get("acceptedAt"),
+                root.get("completedAt"),
+                assignee.get("id"),
+                assignee.get("name"),
+                assignee.get("employeeRole"),
+                assignee.get("accessRole"),
+                assignee.get("active"),
+                root.get("rating"),
+                root.get("comments")
+        ));
+        Predicate predicate = spec == null ? null : spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        if (sort != null && sort.isSorted()) {
+            query.orderBy(QueryUtils.toOrders(sort, root, cb));
+        }
+        return entityManager.createQuery(query);
+    }
+}
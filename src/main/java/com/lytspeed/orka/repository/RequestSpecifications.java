@@ -0,0 +1,89 @@
+package com.lytspeed.orka.repository;
+
+import com.lytspeed.orka.dto.RequestCursor;
+import com.lytspeed.orka.dto.RequestSearchRequest;
+import com.lytspeed.orka.entity.Request;
+import com.lytspeed.orka.entity.enums.RequestStatus;
+import com.lytspeed.orka.security.AccessScope;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Criteria for the request listing. The actor's scope, the optional filters and the
+ * keyset cursor all become WHERE clauses so only the requested page leaves the database.
+ */
+public final class RequestSpecifications {
+
+    /** Newest first; requests without a createdAt sort after all dated ones. */
+    public static final Sort KEYSET_ORDER = Sort.by(
+            Sort.Order.desc("createdAt").nullsLast(),
+            Sort.Order.desc("id")
+    );
+
+    private RequestSpecifications() {
+    }
+
+    public static Specification<Request> statusIn(Collection<RequestStatus> statuses) {
+        return (root, query, cb) -> root.get("status").in(statuses);
+    }
+
+    public static Specification<Request> guestSession(Long guestSessionId) {
+        return (root, query, cb) -> cb.equal(root.get("guestSession").get("id"), guestSessionId);
+    }
+
+    public static Specification<Request> search(AccessScope scope, RequestSearchRequest filter, RequestCursor after) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            predicates.add(ScopeSpecifications.requests(scope).toPredicate(root, query, cb));
+            if (filter.getStatus() != null) {
+                predicates.add(cb.equal(root.get("status"), filter.getStatus()));
+            }
+            if (filter.getType() != null) {
+                predicates.add(cb.equal(root.get("type"), filter.getType()));
+            }
+            if (filter.getHotelId() != null) {
+                predicates.add(cb.equal(root.get("hotel").get("id"), filter.getHotelId()));
+            }
+            if (filter.getRoomId() != null) {
+                predicates.add(cb.equal(root.get("room").get("id"), filter.getRoomId()));
+            }
+            if (filter.getAssigneeId() != null) {
+                predicates.add(cb.equal(root.get("assignee").get("id"), filter.getAssigneeId()));
+            }
+            Path<LocalDateTime> createdAt = root.get("createdAt");
+            if (filter.getCreatedFrom() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(createdAt, filter.getCreatedFrom()));
+            }
+            if (filter.getCreatedTo() != null) {
+                predicates.add(cb.lessThan(createdAt, filter.getCreatedTo()));
+            }
+            if (after != null) {
+                predicates.add(after(after, root, cb));
+            }
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+
+    /** Rows strictly after the cursor in {@link #KEYSET_ORDER}. */
+    private static Predicate after(RequestCursor cursor, Root<Request> root, CriteriaBuilder cb) {
+        Path<LocalDateTime> createdAt = root.get("createdAt");
+        Path<Long> id = root.get("id");
+        if (cursor.createdAt() == null) {
+            return cb.and(cb.isNull(createdAt), cb.lessThan(id, cursor.id()));
+        }
+        return cb.or(
+                cb.lessThan(createdAt, cursor.createdAt()),
+                cb.and(cb.equal(createdAt, cursor.createdAt()), cb.lessThan(id, cursor.id())),
+                cb.isNull(createdAt)
+        );
+    }
+}
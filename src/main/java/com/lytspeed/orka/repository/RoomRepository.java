@@ -2,9 +2,10 @@ package com.lytspeed.orka.repository;
 
 import com.lytspeed.orka.entity.Room;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 
 import java.util.Optional;
 
-public interface RoomRepository extends JpaRepository<Room, Long> {
+public interface RoomRepository extends JpaRepository<Room, Long>, JpaSpecificationExecutor<Room> {
     Optional<Room> findByGuestAccessToken(String guestAccessToken);
 }
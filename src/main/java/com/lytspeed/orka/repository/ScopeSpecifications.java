@@ -0,0 +1,87 @@
+package com.lytspeed.orka.repository;
+
+import com.lytspeed.orka.entity.AppUser;
+import com.lytspeed.orka.entity.Hotel;
+import com.lytspeed.orka.entity.Request;
+import com.lytspeed.orka.entity.Room;
+import com.lytspeed.orka.entity.enums.AppUserStatus;
+import com.lytspeed.orka.security.AccessScope;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * SQL equivalents of the in-memory filters in
+ * {@link com.lytspeed.orka.security.AccessScopeService}: an {@link AccessScope} becomes a
+ * WHERE clause so scoped actors only read their own tenant's rows.
+ */
+public final class ScopeSpecifications {
+
+    private ScopeSpecifications() {
+    }
+
+    /** Same rows as {@code AccessScopeService.filterHotels}. */
+    public static Specification<Hotel> hotels(AccessScope scope) {
+        return (root, query, cb) -> switch (scope.level()) {
+            case ALL -> cb.conjunction();
+            case HOTEL_GROUP -> cb.equal(root.get("hotelGroup").get("id"), scope.id());
+            case HOTEL -> cb.equal(root.get("id"), scope.id());
+            case NONE -> cb.disjunction();
+        };
+    }
+
+    /** Same rows as {@code AccessScopeService.filterRooms}. */
+    public static Specification<Room> rooms(AccessScope scope) {
+        return (root, query, cb) -> hotelPredicate(scope, root.get("hotel"), cb);
+    }
+
+    /** Same rows as {@code AccessScopeService.filterRequests}. */
+    public static Specification<Request> requests(AccessScope scope) {
+        return (root, query, cb) -> hotelPredicate(scope, root.get("hotel"), cb);
+    }
+
+    /** Same rows as {@code AccessScopeService.canReadAppUser}: the actor plus users assigned within the scope. */
+    public static Specification<AppUser> appUsersReadableBy(AppUser actor, AccessScope scope) {
+        return (root, query, cb) -> {
+            Predicate self = cb.equal(root.get("id"), actor.getId());
+            Predicate scoped = switch (scope.level()) {
+                case ALL -> cb.conjunction();
+                case HOTEL_GROUP -> cb.equal(
+                        root.join("assignedHotelGroup", JoinType.LEFT).get("id"), scope.id());
+                case HOTEL -> cb.equal(root.join("assignedHotel", JoinType.LEFT).get("id"), scope.id());
+                case NONE -> cb.disjunction();
+            };
+            return cb.or(self, scoped);
+        };
+    }
+
+    /**
+     * Same rows as filtering {@code PENDING_APPROVAL} users with
+     * {@code AccessScopeService.canManagePendingUser}; the scope comes from
+     * {@code AccessScopeService.pendingApprovalScopeOf} and matches the requested hotel/group.
+     */
+    public static Specification<AppUser> pendingAppUsers(AccessScope scope) {
+        return (root, query, cb) -> {
+            Predicate pending = cb.equal(root.get("status"), AppUserStatus.PENDING_APPROVAL);
+            Predicate scoped = switch (scope.level()) {
+                case ALL -> cb.conjunction();
+                case HOTEL_GROUP -> cb.equal(
+                        root.join("requestedHotelGroup", JoinType.LEFT).get("id"), scope.id());
+                case HOTEL -> cb.equal(root.join("requestedHotel", JoinType.LEFT).get("id"), scope.id());
+                case NONE -> cb.disjunction();
+            };
+            return cb.and(pending, scoped);
+        };
+    }
+
+    private static Predicate hotelPredicate(AccessScope scope, Path<Hotel> hotel, CriteriaBuilder cb) {
+        return switch (scope.level()) {
+            case ALL -> cb.conjunction();
+            case HOTEL_GROUP -> cb.equal(hotel.get("hotelGroup").get("id"), scope.id());
+            case HOTEL -> cb.equal(hotel.get("id"), scope.id());
+            case NONE -> cb.disjunction();
+        };
+    }
+}
@@ -0,0 +1,47 @@
+package com.lytspeed.orka.security;
+
+import com.lytspeed.orka.entity.Hotel;
+
+/**
+ * The slice of the multi-tenant data an actor can see, reduced to a single key.
+ *
+ * Every actor with the same scope sees exactly the same hotels, rooms and requests,
+ * so anything derived purely from scope (filtered lists, encoded payloads, cached
+ * reports) can be computed once per scope and shared between actors.
+ */
+public record AccessScope(Level level, Long id) {
+
+    public enum Level {
+        ALL,
+        HOTEL_GROUP,
+        HOTEL,
+        NONE
+    }
+
+    public static final AccessScope ALL = new AccessScope(Level.ALL, null);
+    public static final AccessScope NONE = new AccessScope(Level.NONE, null);
+
+    public static AccessScope hotelGroup(Long hotelGroupId) {
+        return new AccessScope(Level.HOTEL_GROUP, hotelGroupId);
+    }
+
+    public static AccessScope hotel(Long hotelId) {
+        return new AccessScope(Level.HOTEL, hotelId);
+    }
+
+    public boolean covers(Hotel hotel) {
+        if (hotel == null) {
+            return false;
+        }
+        return covers(hotel.getId(), hotel.getHotelGroup() == null ? null : hotel.getHotelGroup().getId());
+    }
+
+    public boolean covers(Long hotelId, Long hotelGroupId) {
+        return switch (level) {
+            case ALL -> hotelId != null;
+            case HOTEL_GROUP -> hotelGroupId != null && id.equals(hotelGroupId);
+            case HOTEL -> hotelId != null && id.equals(hotelId);
+            case NONE -> false;
+        };
+    }
+}
@@ -39,6 +39,40 @@ public class AccessScopeService {
         }
     }
 
+    /**
+     * Reduces the actor to the scope key used by {@link #filterRequests}, {@link #filterHotels}
+     * and {@link #canManageHotel}. Actors with equal scopes see identical data.
+     */
+    public AccessScope scopeOf(AppUser actor) {
+        if (isSuperAdmin(actor)) {
+            return AccessScope.ALL;
+        }
+        if (isHotelGroupAdmin(actor) && actor.getAssignedHotelGroup() != null) {
+            return AccessScope.hotelGroup(actor.getAssignedHotelGroup().getId());
+        }
+        if ((isHotelAdmin(actor) || isStaff(actor)) && actor.getAssignedHotel() != null) {
+            return AccessScope.hotel(actor.getAssignedHotel().getId());
+        }
+        return AccessScope.NONE;
+    }
+
+    /**
+     * Scope of the pending registrations the actor may approve, matched against the
+     * requested hotel/group. Mirrors {@link #canManagePendingUser}; staff approve nobody.
+     */
+    public AccessScope pendingApprovalScopeOf(AppUser actor) {
+        if (isSuperAdmin(actor)) {
+            return AccessScope.ALL;
+        }
+        if (isHotelGroupAdmin(actor) && actor.getAssignedHotelGroup() != null) {
+            return AccessScope.hotelGroup(actor.getAssignedHotelGroup().getId());
+        }
+        if (isHotelAdmin(actor) && actor.getAssignedHotel() != null) {
+            return AccessScope.hotel(actor.getAssignedHotel().getId());
+        }
+        return AccessScope.NONE;
+    }
+
     public List<HotelGroup> filterHotelGroups(AppUser actor, Collection<HotelGroup> groups) {
         if (isSuperAdmin(actor)) {
             return List.copyOf(groups);
@@ -0,0 +1,77 @@
+package com.lytspeed.orka.service;
+
+import com.lytspeed.orka.config.OrkaNotificationProperties;
+import com.lytspeed.orka.repository.DeviceTokenRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.function.IntSupplier;
+
+/**
+ * Retires device tokens in two steps. Active tokens not registered or refreshed for
+ * {@code orka.notifications.token-stale-after} are deactivated, so they stop receiving
+ * pushes but come back if the app registers them again. Tokens that have then stayed
+ * inactive (stale, unregistered or rejected by FCM) for
+ * {@code orka.notifications.token-inactive-retention} are deleted.
+ *
+ * Both steps run in short batches, one transaction each, so the job never holds many row
+ * locks against concurrent registrations.
+ */
+@Service
+public class DeviceTokenSweeper {
+
+    private static final Logger log = LoggerFactory.getLogger(DeviceTokenSweeper.class);
+
+    private final DeviceTokenRepository deviceTokenRepository;
+    private final PushRecipientIndex pushRecipientIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final OrkaNotificationProperties properties;
+
+    public DeviceTokenSweeper(
+            DeviceTokenRepository deviceTokenRepository,
+            PushRecipientIndex pushRecipientIndex,
+            TransactionTemplate transactionTemplate,
+            OrkaNotificationProperties properties
+    ) {
+        this.deviceTokenRepository = deviceTokenRepository;
+        this.pushRecipientIndex = pushRecipientIndex;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+    }
+
+    @Scheduled(
+            initialDelayString = "${orka.notifications.token-sweep-interval:PT6H}",
+            fixedDelayString = "${orka.notifications.token-sweep-interval:PT6H}"
+    )
+    public void sweepStaleTokens() {
+        LocalDateTime now = LocalDateTime.now();
+        int batchSize = properties.getTokenSweepBatchSize();
+
+        LocalDateTime staleCutoff = now.minus(properties.getTokenStaleAfter());
+        int deactivated = inBatches(batchSize, () -> deviceTokenRepository.deactivateStale(staleCutoff, now, batchSize));
+        if (deactivated > 0) {
+            pushRecipientIndex.invalidate();
+            log.info("Deactivated {} device token(s) not seen since {}", deactivated, staleCutoff);
+        }
+
+        LocalDateTime inactiveCutoff = now.minus(properties.getTokenInactiveRetention());
+        int deleted = inBatches(batchSize, () -> deviceTokenRepository.deleteInactive(inactiveCutoff, batchSize));
+        if (deleted > 0) {
+            log.info("Deleted {} device token(s) inactive since {}", deleted, inactiveCutoff);
+        }
+    }
+
+    private int inBatches(int batchSize, IntSupplier batch) {
+        int total = 0;
+        Integer changed;
+        do {
+            changed = transactionTemplate.execute(status -> batch.getAsInt());
+            total += changed == null ? 0 : changed;
+        } while (changed != null && changed >= batchSize);
+        return total;
+    }
+}
@@ -8,43 +8,75 @@ import com.google.firebase.messaging.Aps;
 import com.google.firebase.messaging.FirebaseMessaging;
 import com.google.firebase.messaging.FirebaseMessagingException;
 import com.google.firebase.messaging.Message;
+import com.google.firebase.messaging.MessagingErrorCode;
 import com.google.firebase.messaging.MulticastMessage;
 import com.google.firebase.messaging.Notification;
 import com.google.firebase.messaging.SendResponse;
 import com.google.firebase.messaging.WebpushConfig;
-import com.lytspeed.orka.entity.DeviceToken;
-import com.lytspeed.orka.entity.Request;
-import com.lytspeed.orka.entity.enums.AccessRole;
-import com.lytspeed.orka.entity.enums.AppUserStatus;
-import com.lytspeed.orka.repository.AppUserRepository;
+import com.lytspeed.orka.config.OrkaNotificationProperties;
+import com.lytspeed.orka.entity.enums.RequestType;
 import com.lytspeed.orka.repository.DeviceTokenRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class FcmNotificationService {
     private static final String ANDROID_HIGH_PRIORITY_CHANNEL_ID = "orka-high-priority";
 
+    /** FCM rejects multicast messages addressed to more tokens than this. */
+    static final int MAX_MULTICAST_TOKENS = 500;
+
 
     private static final Logger log = LoggerFactory.getLogger(FcmNotificationService.class);
 
     private final Optional<FirebaseMessaging> firebaseMessaging;
     private final DeviceTokenRepository deviceTokenRepository;
-    private final AppUserRepository appUserRepository;
+    private final PushRecipientIndex pushRecipientIndex;
+    private final int chunkRetries;
+    private final Duration chunkRetryBackoff;
+
+    /** Sends multicast chunks; bounded so a large fan-out cannot flood FCM or the JVM with threads. */
+    private final ExecutorService sendExecutor;
+
+    private final AtomicLong chunksSent = new AtomicLong();
+    private final AtomicLong chunkFailures = new AtomicLong();
+    private final AtomicLong tokensDelivered = new AtomicLong();
+    private final AtomicLong tokensRejected = new AtomicLong();
+    private final AtomicLong tokensRetried = new AtomicLong();
+    private final AtomicLong tokensDeferred = new AtomicLong();
+    private final AtomicLong chunkMillisTotal = new AtomicLong();
+    private final AtomicLong chunkMillisMax = new AtomicLong();
 
     public FcmNotificationService(
             Optional<FirebaseMessaging> firebaseMessaging,
             DeviceTokenRepository deviceTokenRepository,
-            AppUserRepository appUserRepository
+            PushRecipientIndex pushRecipientIndex,
+            OrkaNotificationProperties properties
     ) {
         this.firebaseMessaging = firebaseMessaging;
         this.deviceTokenRepository = deviceTokenRepository;
-        this.appUserRepository = appUserRepository;
+        this.pushRecipientIndex = pushRecipientIndex;
+        this.chunkRetries = Math.max(0, properties.getChunkRetries());
+        this.chunkRetryBackoff = properties.getChunkRetryBackoff() == null
+                ? Duration.ZERO
+                : properties.getChunkRetryBackoff();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.sendExecutor = Executors.newFixedThreadPool(Math.max(1, properties.getSendThreads()), r -> {
+            Thread t = new Thread(r, "fcm-sender-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
     }
 
     public boolean isEnabled() {
@@ -71,154 +103,177 @@ public class FcmNotificationService {
             firebaseMessaging.get().send(builder.build());
         } catch (FirebaseMessagingException e) {
             log.warn("FCM sendToToken failed: {}", e.getMessage());
-            maybeDeactivateToken(fcmToken, e);
+            if (isUnregistered(e)) {
+                deactivateTokens(List.of(fcmToken));
+            }
         }
     }
 
-    public void notifyNewRequest(Request request) {
-        if (request == null || request.getId() == null || request.getHotel() == null || request.getHotel().getId() == null) {
-            return;
-        }
-        if (firebaseMessaging.isEmpty()) {
-            log.info("FCM disabled; skipping notifyNewRequest for request {}", request.getId());
-            return;
-        }
-
-        // Hotel-level recipients: HOTEL_ADMIN, STAFF, ADMIN assigned directly to this hotel
-        List<AccessRole> hotelRoles = List.of(AccessRole.HOTEL_ADMIN, AccessRole.STAFF, AccessRole.ADMIN);
-        List<com.lytspeed.orka.entity.AppUser> hotelRecipients = appUserRepository
-                .findByAssignedHotelIdAndStatusAndAccessRoleIn(
-                        request.getHotel().getId(),
-                        AppUserStatus.ACTIVE,
-                        hotelRoles
-                ).stream().filter(user -> Boolean.TRUE.equals(user.getFcmEnabled())).toList();
-
-        // Hotel-group-level recipients: HOTEL_GROUP_ADMIN assigned to the hotel's group
-        List<com.lytspeed.orka.entity.AppUser> groupRecipients = List.of();
-        if (request.getHotel().getHotelGroup() != null && request.getHotel().getHotelGroup().getId() != null) {
-            groupRecipients = appUserRepository
-                    .findByAssignedHotelGroupIdAndStatusAndAccessRoleIn(
-                            request.getHotel().getHotelGroup().getId(),
-                            AppUserStatus.ACTIVE,
-                            List.of(AccessRole.HOTEL_GROUP_ADMIN)
-                    ).stream().filter(user -> Boolean.TRUE.equals(user.getFcmEnabled())).toList();
-        }
-
-        // Superadmin recipients: all SUPERADMIN users (not hotel/group scoped)
-        List<com.lytspeed.orka.entity.AppUser> superAdminRecipients = appUserRepository
-                .findByStatusAndAccessRoleIn(
-                        AppUserStatus.ACTIVE,
-                        List.of(AccessRole.SUPERADMIN)
-                ).stream().filter(user -> Boolean.TRUE.equals(user.getFcmEnabled())).toList();
-
-        List<com.lytspeed.orka.entity.AppUser> recipients = new ArrayList<>();
-        recipients.addAll(hotelRecipients);
-        recipients.addAll(groupRecipients);
-        recipients.addAll(superAdminRecipients);
+    /** Push targets for a new request of this type in this hotel; see {@link PushRecipientIndex#tokensFor}. */
+    public List<String> recipientTokens(Long hotelId, Long hotelGroupId, RequestType requestType) {
+        return pushRecipientIndex.tokensFor(hotelId, hotelGroupId, requestType);
+    }
 
-        if (recipients.isEmpty()) {
-            log.info("No active recipients found for request {} hotel {}", request.getId(), request.getHotel().getId());
-            return;
+    /**
+     * Sends one notification to all tokens. Tokens go out in chunks of at most
+     * {@value #MAX_MULTICAST_TOKENS} (the FCM multicast limit), sent concurrently on the
+     * bounded sender pool; each chunk retries its transiently failed tokens (FCM unavailable,
+     * internal error, quota) with jittered exponential backoff. Permanently rejected tokens
+     * are deactivated with a single UPDATE once all chunks are done; the tokens still failing
+     * transiently are returned so the caller can retry them later.
+     */
+    public List<String> sendMulticast(List<String> fcmTokens, String title, String body, Map<String, String> data) {
+        if (firebaseMessaging.isEmpty() || fcmTokens.isEmpty()) {
+            return List.of();
         }
-
-        Set<Long> appUserIds = recipients.stream()
-                .map(user -> user.getId())
-                .filter(Objects::nonNull)
-                .collect(Collectors.toSet());
-
-        List<DeviceToken> tokens = deviceTokenRepository.findAll().stream()
-                .filter(token -> Boolean.TRUE.equals(token.getActive()))
-                .filter(token -> token.getAppUser() != null && token.getAppUser().getId() != null)
-                .filter(token -> appUserIds.contains(token.getAppUser().getId()))
-                .toList();
-
-        if (tokens.isEmpty()) {
-            log.info("No active device tokens for request {} recipients", request.getId());
-            return;
+        List<CompletableFuture<ChunkResult>> chunks = new ArrayList<>();
+        for (int from = 0; from < fcmTokens.size(); from += MAX_MULTICAST_TOKENS) {
+            List<String> chunk = fcmTokens.subList(from, Math.min(from + MAX_MULTICAST_TOKENS, fcmTokens.size()));
+            chunks.add(CompletableFuture.supplyAsync(() -> sendChunk(chunk, title, body, data), sendExecutor));
         }
-
-        List<String> fcmTokens = tokens.stream()
-                .map(DeviceToken::getFcmToken)
-                .filter(Objects::nonNull)
-                .map(String::trim)
-                .filter(s -> !s.isBlank())
-                .distinct()
-                .toList();
-
-        if (fcmTokens.isEmpty()) {
-            return;
+        List<String> retry = new ArrayList<>();
+        List<String> unregistered = new ArrayList<>();
+        for (CompletableFuture<ChunkResult> chunk : chunks) {
+            ChunkResult result = chunk.join();
+            retry.addAll(result.retry());
+            unregistered.addAll(result.unregistered());
         }
+        deactivateTokens(unregistered);
+        return retry;
+    }
 
-        String roomNumber = request.getRoom() != null ? request.getRoom().getNumber() : null;
-        String title = "New service request";
-        String body = roomNumber == null || roomNumber.isBlank()
-                ? "A new guest request is waiting"
-                : "Room " + roomNumber + " has a new request";
+    /** Chunk and token counters for the multicast sender (see {@link #sendMulticast}). */
+    public Map<String, Object> stats() {
+        long chunks = chunksSent.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("chunks", chunks);
+        stats.put("chunkFailures", chunkFailures.get());
+        stats.put("tokensDelivered", tokensDelivered.get());
+        stats.put("tokensRejected", tokensRejected.get());
+        stats.put("tokensRetried", tokensRetried.get());
+        stats.put("tokensDeferred", tokensDeferred.get());
+        stats.put("avgChunkMillis", chunks == 0 ? null : chunkMillisTotal.get() / chunks);
+        stats.put("maxChunkMillis", chunkMillisMax.get());
+        return stats;
+    }
 
-        Map<String, String> data = new HashMap<>();
-        data.put("eventType", "NEW_REQUEST");
-        data.put("requestId", String.valueOf(request.getId()));
-        if (request.getHotel() != null && request.getHotel().getId() != null) {
-            data.put("hotelId", String.valueOf(request.getHotel().getId()));
-        }
-        if (request.getRoom() != null && request.getRoom().getId() != null) {
-            data.put("roomId", String.valueOf(request.getRoom().getId()));
-        }
-        if (request.getType() != null) {
-            data.put("requestType", request.getType().name());
+    private ChunkResult sendChunk(List<String> tokens, String title, String body, Map<String, String> data) {
+        List<String> pending = tokens;
+        List<String> unregistered = new ArrayList<>();
+        for (int attempt = 0; ; attempt++) {
+            pending = sendChunkOnce(pending, title, body, data, unregistered);
+            if (pending.isEmpty() || attempt >= chunkRetries) {
+                break;
+            }
+            tokensRetried.addAndGet(pending.size());
+            try {
+                Thread.sleep(retryDelay(attempt).toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
         }
-
-        sendMulticast(fcmTokens, title, body, data);
+        tokensDeferred.addAndGet(pending.size());
+        return new ChunkResult(pending, unregistered);
     }
 
-    private void sendMulticast(List<String> fcmTokens, String title, String body, Map<String, String> data) {
-        if (firebaseMessaging.isEmpty() || fcmTokens.isEmpty()) {
-            return;
-        }
+    private List<String> sendChunkOnce(
+            List<String> tokens,
+            String title,
+            String body,
+            Map<String, String> data,
+            List<String> unregistered
+    ) {
         MulticastMessage.Builder builder = MulticastMessage.builder()
-                .addAllTokens(fcmTokens)
+                .addAllTokens(tokens)
                 .setNotification(Notification.builder().setTitle(title).setBody(body).build());
         applyHighPriorityDelivery(builder);
         if (data != null && !data.isEmpty()) {
             builder.putAllData(data);
         }
 
+        long started = System.nanoTime();
+        List<String> retry = new ArrayList<>();
         try {
             var batchResponse = firebaseMessaging.get().sendEachForMulticast(builder.build());
+            tokensDelivered.addAndGet(batchResponse.getSuccessCount());
             for (int i = 0; i < batchResponse.getResponses().size(); i++) {
                 SendResponse response = batchResponse.getResponses().get(i);
                 if (response.isSuccessful()) {
                     continue;
                 }
-                String failedToken = fcmTokens.get(i);
+                String failedToken = tokens.get(i);
                 FirebaseMessagingException exception = response.getException();
-                if (exception != null) {
+                if (exception == null) {
+                    continue;
+                }
+                if (isTransient(exception)) {
+                    retry.add(failedToken);
+                } else {
+                    tokensRejected.incrementAndGet();
                     log.warn("FCM multicast send failed for token {}: {}", failedToken, exception.getMessage());
-                    maybeDeactivateToken(failedToken, exception);
+                    if (isUnregistered(exception)) {
+                        unregistered.add(failedToken);
+                    }
                 }
             }
         } catch (FirebaseMessagingException e) {
+            chunkFailures.incrementAndGet();
             log.warn("FCM multicast send failed: {}", e.getMessage());
+            if (isTransient(e)) {
+                retry = tokens;
+            }
+        } finally {
+            long millis = (System.nanoTime() - started) / 1_000_000;
+            chunksSent.incrementAndGet();
+            chunkMillisTotal.addAndGet(millis);
+            chunkMillisMax.accumulateAndGet(millis, Math::max);
+            log.debug("FCM multicast chunk of {} token(s) took {} ms, {} to retry", tokens.size(), millis, retry.size());
         }
+        return retry;
     }
 
-    private void maybeDeactivateToken(String fcmToken, FirebaseMessagingException e) {
+    /** chunk-retry-backoff × 2^attempt with ±20% jitter, so retried chunks do not hit FCM in lockstep. */
+    private Duration retryDelay(int attempt) {
+        long delay = chunkRetryBackoff.toMillis() << Math.min(attempt, 10);
+        double jitter = 0.8 + ThreadLocalRandom.current().nextDouble() * 0.4;
+        return Duration.ofMillis((long) (delay * jitter));
+    }
+
+    private static boolean isTransient(FirebaseMessagingException e) {
+        MessagingErrorCode messagingCode = e.getMessagingErrorCode();
+        if (messagingCode == MessagingErrorCode.UNAVAILABLE
+                || messagingCode == MessagingErrorCode.INTERNAL
+                || messagingCode == MessagingErrorCode.QUOTA_EXCEEDED) {
+            return true;
+        }
+        ErrorCode code = e.getErrorCode();
+        return code == ErrorCode.UNAVAILABLE
+                || code == ErrorCode.INTERNAL
+                || code == ErrorCode.RESOURCE_EXHAUSTED
+                || code == ErrorCode.DEADLINE_EXCEEDED;
+    }
+
+    /** Whether FCM says the token itself is no longer valid, as opposed to the message or the service. */
+    private static boolean isUnregistered(FirebaseMessagingException e) {
         ErrorCode code = e.getErrorCode();
         if (code == null) {
-            return;
+            return false;
         }
         String message = e.getMessage() == null ? "" : e.getMessage().toLowerCase(Locale.ROOT);
-        boolean invalidArgument = code == ErrorCode.INVALID_ARGUMENT;
-        boolean unregisteredToken = message.contains("registration-token-not-registered")
+        return code == ErrorCode.INVALID_ARGUMENT
+                || message.contains("registration-token-not-registered")
                 || message.contains("unregistered");
-        if (!(invalidArgument || unregisteredToken)) {
+    }
+
+    private void deactivateTokens(List<String> fcmTokens) {
+        if (fcmTokens.isEmpty()) {
             return;
         }
-        deviceTokenRepository.findByFcmToken(fcmToken).ifPresent(token -> {
-            token.setActive(false);
-            token.setLastSeenAt(LocalDateTime.now());
-            deviceTokenRepository.save(token);
-        });
+        int deactivated = deviceTokenRepository.deactivateByFcmTokenIn(fcmTokens, LocalDateTime.now());
+        if (deactivated > 0) {
+            pushRecipientIndex.invalidate();
+        }
     }
 
     private void applyHighPriorityDelivery(Message.Builder builder) {
@@ -260,4 +315,7 @@ public class FcmNotificationService {
                 .putHeader("Urgency", "high")
                 .build();
     }
+
+    private record ChunkResult(List<String> retry, List<String> unregistered) {
+    }
 }
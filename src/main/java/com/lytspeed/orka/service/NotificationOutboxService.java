@@ -0,0 +1,342 @@
+package com.lytspeed.orka.service;
+
+import com.lytspeed.orka.config.OrkaNotificationProperties;
+import com.lytspeed.orka.dto.RequestDto;
+import com.lytspeed.orka.entity.Hotel;
+import com.lytspeed.orka.entity.NotificationOutbox;
+import com.lytspeed.orka.entity.enums.OutboxStatus;
+import com.lytspeed.orka.entity.enums.RequestType;
+import com.lytspeed.orka.event.RequestChangedEvent;
+import com.lytspeed.orka.repository.HotelRepository;
+import com.lytspeed.orka.repository.NotificationOutboxRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.ObjectMapper;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Push notifications through a transactional outbox.
+ *
+ * {@link #enqueueNewRequest} runs inside the transaction that creates the request, so the
+ * push commits or rolls back with it and the guest's POST never waits on Firebase. The
+ * dispatcher claims due rows with SKIP LOCKED and leases them by pushing their next attempt
+ * out, then sends outside any transaction; several instances can dispatch side by side,
+ * and a row whose claimer dies is picked up again when the lease runs out.
+ *
+ * Delivered rows are deleted. Tokens that failed transiently are retried with jittered
+ * exponential backoff until {@code orka.notifications.max-attempts}, after which the row
+ * is parked as FAILED, and purged after {@code orka.notifications.failed-retention}.
+ *
+ * Hotels with {@code pushCoalesceSeconds} set hold new-request pushes back for that long.
+ * While further requests keep arriving inside the window the whole burst waits, up to
+ * {@code orka.notifications.coalesce-max-delay} after its first request, and then goes
+ * out as one summary push per device.
+ */
+@Service
+public class NotificationOutboxService {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationOutboxService.class);
+    private static final TypeReference<Map<String, String>> DATA_TYPE = new TypeReference<>() {
+    };
+    private static final String NEW_REQUEST = "NEW_REQUEST";
+    private static final int SUMMARY_ROOMS = 5;
+
+    private final NotificationOutboxRepository outboxRepository;
+    private final HotelRepository hotelRepository;
+    private final FcmNotificationService fcmNotificationService;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final OrkaNotificationProperties properties;
+
+    public NotificationOutboxService(
+            NotificationOutboxRepository outboxRepository,
+            HotelRepository hotelRepository,
+            FcmNotificationService fcmNotificationService,
+            TransactionTemplate transactionTemplate,
+            ObjectMapper objectMapper,
+            OrkaNotificationProperties properties
+    ) {
+        this.outboxRepository = outboxRepository;
+        this.hotelRepository = hotelRepository;
+        this.fcmNotificationService = fcmNotificationService;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+    }
+
+    /** Queues the "new request" push for the hotel's staff; joins the caller's transaction. */
+    public void enqueueNewRequest(RequestChangedEvent event) {
+        if (event == null || event.requestId() == null || event.hotelId() == null) {
+            return;
+        }
+        RequestDto request = event.request();
+        if (!fcmNotificationService.isEnabled()) {
+            log.info("FCM disabled; skipping new request notification for request {}", request.getId());
+            return;
+        }
+
+        String roomNumber = request.getRoom() != null ? request.getRoom().getNumber() : null;
+        String title = "New service request";
+        String body = roomNumber == null || roomNumber.isBlank()
+                ? "A new guest request is waiting"
+                : "Room " + roomNumber + " has a new request";
+
+        Map<String, String> data = new HashMap<>();
+        data.put("eventType", NEW_REQUEST);
+        data.put("requestId", String.valueOf(request.getId()));
+        data.put("hotelId", String.valueOf(event.hotelId()));
+        if (request.getRoom() != null && request.getRoom().getId() != null) {
+            data.put("roomId", String.valueOf(request.getRoom().getId()));
+        }
+        if (roomNumber != null && !roomNumber.isBlank()) {
+            data.put("roomNumber", roomNumber);
+        }
+        if (request.getType() != null) {
+            data.put("requestType", request.getType().name());
+        }
+
+        NotificationOutbox outbox = new NotificationOutbox();
+        outbox.setHotelId(event.hotelId());
+        outbox.setHotelGroupId(event.hotelGroupId());
+        outbox.setTitle(title);
+        outbox.setBody(body);
+        outbox.setData(objectMapper.writeValueAsString(data));
+        Duration window = coalesceWindow(event.hotelId());
+        if (window != null) {
+            // Bursts merge per type, so the summary still goes only to the staff routed for it
+            outbox.setCoalesceKey(request.getType() == null ? NEW_REQUEST : NEW_REQUEST + ":" + request.getType().name());
+            outbox.setNextAttemptAt(LocalDateTime.now().plus(window));
+        }
+        outboxRepository.save(outbox);
+    }
+
+    private Duration coalesceWindow(Long hotelId) {
+        Duration maxDelay = properties.getCoalesceMaxDelay();
+        return hotelRepository.findById(hotelId)
+                .map(Hotel::getPushCoalesceSeconds)
+                .filter(seconds -> seconds > 0)
+                .map(seconds -> Duration.ofSeconds(seconds))
+                .map(window -> window.compareTo(maxDelay) > 0 ? maxDelay : window)
+                .orElse(null);
+    }
+
+    @Scheduled(fixedDelayString = "${orka.notifications.dispatch-interval:PT2S}")
+    public void dispatch() {
+        if (!fcmNotificationService.isEnabled()) {
+            return;
+        }
+        Claim claim;
+        do {
+            claim = transactionTemplate.execute(status -> claim());
+            if (claim != null && !claim.rows().isEmpty()) {
+                deliver(claim.rows());
+            }
+        } while (claim != null && claim.due() >= properties.getBatchSize());
+    }
+
+    private Claim claim() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> ids = outboxRepository.lockDueIds(now, properties.getBatchSize());
+        if (ids.isEmpty()) {
+            return new Claim(0, List.of());
+        }
+        List<NotificationOutbox> claimed = new ArrayList<>();
+        Map<List<Object>, List<NotificationOutbox>> bursts = new LinkedHashMap<>();
+        for (NotificationOutbox row : outboxRepository.findAllById(ids)) {
+            if (row.getCoalesceKey() != null && row.getAttempts() == 0) {
+                bursts.computeIfAbsent(Arrays.asList(row.getHotelId(), row.getCoalesceKey()), key -> new ArrayList<>())
+                        .add(row);
+            } else {
+                claimed.add(row);
+            }
+        }
+        bursts.forEach((key, due) -> {
+            NotificationOutbox merged = coalesce(due.get(0).getHotelId(), due.get(0).getCoalesceKey(), now);
+            if (merged != null) {
+                claimed.add(merged);
+            }
+        });
+        for (NotificationOutbox row : claimed) {
+            row.setAttempts(row.getAttempts() + 1);
+            row.setNextAttemptAt(now.plus(properties.getLease()));
+        }
+        return new Claim(ids.size(), claimed);
+    }
+
+    /**
+     * Collects every unsent row of the hotel's burst. If the newest one is still inside its
+     * window and the burst has not hit the max delay, the burst is put back until then;
+     * otherwise it is merged into its first row and the rest are deleted.
+     */
+    private NotificationOutbox coalesce(Long hotelId, String coalesceKey, LocalDateTime now) {
+        List<NotificationOutbox> burst = outboxRepository.findAllById(outboxRepository.lockCoalescingIds(hotelId, coalesceKey))
+                .stream()
+                .sorted(Comparator.comparing(NotificationOutbox::getId))
+                .toList();
+        if (burst.isEmpty()) {
+            return null;
+        }
+        LocalDateTime quietAt = burst.stream().map(NotificationOutbox::getNextAttemptAt).max(Comparator.naturalOrder()).get();
+        LocalDateTime deadline = burst.get(0).getCreatedAt().plus(properties.getCoalesceMaxDelay());
+        if (quietAt.isAfter(now) && deadline.isAfter(now)) {
+            LocalDateTime sendAt = quietAt.isBefore(deadline) ? quietAt : deadline;
+            burst.forEach(row -> row.setNextAttemptAt(sendAt));
+            return null;
+        }
+        NotificationOutbox first = burst.get(0);
+        if (burst.size() == 1) {
+            return first;
+        }
+
+        List<String> requestIds = new ArrayList<>();
+        List<String> roomNumbers = new ArrayList<>();
+        for (NotificationOutbox row : burst) {
+            Map<String, String> rowData = dataOf(row.getData());
+            if (rowData.get("requestId") != null) {
+                requestIds.add(rowData.get("requestId"));
+            }
+            String roomNumber = rowData.get("roomNumber");
+            if (roomNumber != null && !roomNumbers.contains(roomNumber)) {
+                roomNumbers.add(roomNumber);
+            }
+        }
+        NotificationOutbox last = burst.get(burst.size() - 1);
+        Map<String, String> data = new HashMap<>(dataOf(last.getData()));
+        data.remove("roomId");
+        data.remove("roomNumber");
+        data.put("requestIds", String.join(",", requestIds));
+        data.put("count", String.valueOf(burst.size()));
+
+        first.setHotelGroupId(last.getHotelGroupId());
+        first.setTitle("New service requests");
+        first.setBody(summaryBody(burst.size(), roomNumbers));
+        first.setData(objectMapper.writeValueAsString(data));
+        outboxRepository.deleteAllByIdInBatch(burst.subList(1, burst.size()).stream().map(NotificationOutbox::getId).toList());
+        return first;
+    }
+
+    /** "5 new requests: rooms 101, 204, …", naming at most {@value #SUMMARY_ROOMS} rooms. */
+    static String summaryBody(int count, List<String> roomNumbers) {
+        String summary = count + " new requests";
+        if (roomNumbers.isEmpty()) {
+            return summary;
+        }
+        String rooms = String.join(", ", roomNumbers.subList(0, Math.min(SUMMARY_ROOMS, roomNumbers.size())));
+        return summary + (roomNumbers.size() == 1 ? ": room " : ": rooms ") + rooms
+                + (roomNumbers.size() > SUMMARY_ROOMS ? ", …" : "");
+    }
+
+    private void deliver(List<NotificationOutbox> rows) {
+        // Recipients are resolved once per hotel and request type per round, then rows with the
+        // same payload share one multicast.
+        Map<List<Object>, List<String>> recipientsByHotel = new HashMap<>();
+        Map<NotificationOutbox, List<String>> tokensByRow = new LinkedHashMap<>();
+        Map<Payload, Set<String>> tokensByPayload = new LinkedHashMap<>();
+        for (NotificationOutbox row : rows) {
+            List<String> tokens;
+            if (row.getTokens() != null) {
+                tokens = Arrays.stream(row.getTokens().split("\n")).filter(t -> !t.isBlank()).toList();
+            } else {
+                RequestType requestType = requestTypeOf(row);
+                tokens = recipientsByHotel.computeIfAbsent(
+                        Arrays.asList(row.getHotelId(), row.getHotelGroupId(), requestType),
+                        key -> fcmNotificationService.recipientTokens(row.getHotelId(), row.getHotelGroupId(), requestType));
+            }
+            tokensByRow.put(row, tokens);
+            tokensByPayload.computeIfAbsent(payloadOf(row), key -> new LinkedHashSet<>()).addAll(tokens);
+        }
+
+        // Failures are kept per payload: a token that missed payload A may still have got B
+        Map<Payload, Set<String>> retryByPayload = new HashMap<>();
+        tokensByPayload.forEach((payload, tokens) -> {
+            if (!tokens.isEmpty()) {
+                retryByPayload.put(payload, new HashSet<>(fcmNotificationService.sendMulticast(
+                        List.copyOf(tokens), payload.title(), payload.body(), dataOf(payload.data()))));
+            }
+        });
+
+        List<Long> delivered = new ArrayList<>();
+        List<NotificationOutbox> pending = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        tokensByRow.forEach((row, tokens) -> {
+            Set<String> retry = retryByPayload.getOrDefault(payloadOf(row), Set.of());
+            List<String> remaining = tokens.stream().filter(retry::contains).toList();
+            if (remaining.isEmpty()) {
+                delivered.add(row.getId());
+                return;
+            }
+            row.setTokens(String.join("\n", remaining));
+            row.setLastError(remaining.size() + " token(s) failed transiently");
+            if (row.getAttempts() >= properties.getMaxAttempts()) {
+                row.setStatus(OutboxStatus.FAILED);
+                log.warn("Giving up on notification {} after {} attempt(s)", row.getId(), row.getAttempts());
+            } else {
+                row.setNextAttemptAt(now.plus(backoff(row.getAttempts())));
+            }
+            pending.add(row);
+        });
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!delivered.isEmpty()) {
+                outboxRepository.deleteAllByIdInBatch(delivered);
+            }
+            if (!pending.isEmpty()) {
+                outboxRepository.saveAll(pending);
+            }
+        });
+    }
+
+    /** initial-backoff × 2^(attempt-1), capped at max-backoff, with ±20% jitter so retries spread out. */
+    private Duration backoff(int attempt) {
+        long initial = properties.getInitialBackoff().toMillis();
+        long max = properties.getMaxBackoff().toMillis();
+        long delay = initial << Math.min(Math.max(0, attempt - 1), 30);
+        if (delay <= 0 || delay > max) {
+            delay = max;
+        }
+        double jitter = 0.8 + ThreadLocalRandom.current().nextDouble() * 0.4;
+        return Duration.ofMillis((long) (delay * jitter));
+    }
+
+    /**
+     * Deletes FAILED rows older than {@code orka.notifications.failed-retention}. They stay
+     * around that long so a push that was given up on can still be looked into.
+     */
+    @Scheduled(
+            initialDelayString = "${orka.notifications.failed-purge-interval:PT1H}",
+            fixedDelayString = "${orka.notifications.failed-purge-interval:PT1H}"
+    )
+    public void purgeFailed() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(properties.getFailedRetention());
+        Integer purged = transactionTemplate.execute(status -> outboxRepository.deleteByStatusCreatedBefore(OutboxStatus.FAILED, cutoff));
+        if (purged != null && purged > 0) {
+            log.info("Purged {} failed notification(s) created before {}", purged, cutoff);
+        }
+    }
+
+    private static Payload payloadOf(NotificationOutbox row) {
+        return new Payload(row.getTitle(), row.getBody(), row.getData());
+    }
+
+    private RequestType requestTypeOf(NotificationOutbox row) {
+        String type = dataOf(row.getData()).get("requestType");
+        return type == null ? null : RequestType.valueOf(type);
+    }
+
+    private Map<String, String> dataOf(String json) {
+        return json == null ? Map.of() : objectMapper.readValue(json, DATA_TYPE);
+    }
+
+    private record Claim(int due, List<NotificationOutbox> rows) {
+    }
+
+    private record Payload(String title, String body, String data) {
+    }
+}
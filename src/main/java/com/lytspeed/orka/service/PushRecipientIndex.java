@@ -0,0 +1,149 @@
+package com.lytspeed.orka.service;
+
+import com.lytspeed.orka.config.OrkaNotificationProperties;
+import com.lytspeed.orka.entity.enums.AccessRole;
+import com.lytspeed.orka.entity.enums.AppUserStatus;
+import com.lytspeed.orka.entity.enums.EmployeeRole;
+import com.lytspeed.orka.entity.enums.RequestType;
+import com.lytspeed.orka.repository.DeviceTokenRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Push targets per (hotel, hotel group, request type), kept in memory so a new request
+ * finds its recipients without touching the database.
+ *
+ * A request goes to the hotel's staff whose employee role {@code orka.notifications.routing}
+ * maps its type to, plus anyone in scope who opted in to the type. When the type is not
+ * routed, or none of the routed staff has a device, the hotel's admins, group admins,
+ * superadmins and {@code fallback-employee-roles} staff get it as well; opt-ins alone never
+ * stand in for the staff who do the work.
+ *
+ * The set only changes when a user is approved, edited, disabled or deleted, or when a
+ * device token is registered, unregistered or rejected by FCM; those paths call
+ * {@link #invalidate()}. The key carries the group id, so a hotel moving group simply
+ * lands on a different entry. Invalidation waits for the surrounding transaction to
+ * commit, and a lookup that raced past it is returned but not kept, so a stale list is never
+ * cached. Changes made by another instance are picked up when the TTL runs out.
+ */
+@Service
+public class PushRecipientIndex {
+
+    private static final List<AccessRole> HOTEL_RECIPIENT_ROLES = List.of(AccessRole.HOTEL_ADMIN, AccessRole.ADMIN);
+    private static final List<AccessRole> GROUP_RECIPIENT_ROLES = List.of(AccessRole.HOTEL_GROUP_ADMIN);
+    private static final List<AccessRole> GLOBAL_RECIPIENT_ROLES = List.of(AccessRole.SUPERADMIN);
+
+    private final DeviceTokenRepository deviceTokenRepository;
+    private final Map<RequestType, List<EmployeeRole>> routing;
+    private final List<EmployeeRole> fallbackEmployeeRoles;
+    private final Duration ttl;
+
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+
+    public PushRecipientIndex(DeviceTokenRepository deviceTokenRepository, OrkaNotificationProperties properties) {
+        this.deviceTokenRepository = deviceTokenRepository;
+        this.routing = properties.getRouting() == null ? Map.of() : Map.copyOf(properties.getRouting());
+        this.fallbackEmployeeRoles = properties.getFallbackEmployeeRoles() == null
+                ? List.of()
+                : List.copyOf(properties.getFallbackEmployeeRoles());
+        this.ttl = properties.getRecipientCacheTtl() == null ? Duration.ZERO : properties.getRecipientCacheTtl();
+    }
+
+    /**
+     * Active FCM tokens of everyone who should hear about a new request of this type in
+     * this hotel, limited to users with push enabled. A null type goes to the fallback
+     * recipients.
+     */
+    public List<String> tokensFor(Long hotelId, Long hotelGroupId, RequestType requestType) {
+        Key key = new Key(hotelId, hotelGroupId, requestType);
+        long current = version.get();
+        long now = System.nanoTime();
+        Entry entry = entries.get(key);
+        if (entry != null && entry.version() == current && now - entry.expiresAt() < 0) {
+            return entry.tokens();
+        }
+
+        List<String> tokens = clean(lookup(hotelId, hotelGroupId, requestType));
+        if (!ttl.isZero() && version.get() == current) {
+            entries.put(key, new Entry(tokens, current, now + ttl.toNanos()));
+        }
+        return tokens;
+    }
+
+    /** Forgets every cached recipient list once the current transaction (if any) commits. */
+    public void invalidate() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    clear();
+                }
+            });
+        } else {
+            clear();
+        }
+    }
+
+    private void clear() {
+        version.incrementAndGet();
+        entries.clear();
+    }
+
+    private List<String> lookup(Long hotelId, Long hotelGroupId, RequestType requestType) {
+        List<EmployeeRole> routedRoles = requestType == null ? List.of() : routing.getOrDefault(requestType, List.of());
+        List<String> staff = routedRoles.isEmpty()
+                ? List.of()
+                : deviceTokenRepository.findStaffTokens(hotelId, AppUserStatus.ACTIVE, routedRoles);
+        Set<String> tokens = new LinkedHashSet<>(staff);
+        if (requestType != null) {
+            tokens.addAll(deviceTokenRepository.findOptInTokens(
+                    hotelId,
+                    hotelGroupId,
+                    AppUserStatus.ACTIVE,
+                    requestType,
+                    GROUP_RECIPIENT_ROLES,
+                    GLOBAL_RECIPIENT_ROLES
+            ));
+        }
+        // Opt-ins are extra eyes, not the people who do the work: only routed staff with a
+        // device make the fallback unnecessary.
+        if (staff.isEmpty()) {
+            tokens.addAll(deviceTokenRepository.findRecipientTokens(
+                    hotelId,
+                    hotelGroupId,
+                    AppUserStatus.ACTIVE,
+                    HOTEL_RECIPIENT_ROLES,
+                    fallbackEmployeeRoles,
+                    GROUP_RECIPIENT_ROLES,
+                    GLOBAL_RECIPIENT_ROLES
+            ));
+        }
+        return List.copyOf(tokens);
+    }
+
+    private static List<String> clean(List<String> tokens) {
+        return tokens.stream()
+                .filter(Objects::nonNull)
+                .map(String::trim)
+                .filter(s -> !s.isBlank())
+                .distinct()
+                .toList();
+    }
+
+    private record Key(Long hotelId, Long hotelGroupId, RequestType requestType) {
+    }
+
+    private record Entry(List<String> tokens, long version, long expiresAt) {
+    }
+}
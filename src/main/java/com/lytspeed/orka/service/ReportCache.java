@@ -0,0 +1,106 @@
+package com.lytspeed.orka.service;
+
+import com.lytspeed.orka.config.OrkaReportProperties;
+import com.lytspeed.orka.security.AccessScope;
+import org.springframework.stereotype.Service;
+import tools.jackson.databind.ObjectMapper;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Computed report bodies per (scope, report key), with a strong ETag over their JSON.
+ *
+ * Every scope carries a version that {@link #invalidate} bumps when a request in one of its
+ * hotels changes. A cached body is served only while its version is current and its TTL has
+ * not run out, and a body computed while an invalidation raced past is returned but not
+ * stored, so a refresh never pins pre-change numbers in the cache.
+ */
+@Service
+public class ReportCache {
+
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final int maxEntries;
+
+    private final Map<Key, Entry<?>> entries = new ConcurrentHashMap<>();
+    private final Map<AccessScope, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    public ReportCache(ObjectMapper objectMapper, OrkaReportProperties properties) {
+        this.objectMapper = objectMapper;
+        this.ttl = properties.getCacheTtl() == null ? Duration.ZERO : properties.getCacheTtl();
+        this.maxEntries = Math.max(1, properties.getCacheMaxEntries());
+    }
+
+    /** The cached report for this scope and key, computing it with {@code loader} when missing or stale. */
+    @SuppressWarnings("unchecked")
+    public <T> Cached<T> get(AccessScope scope, String key, Supplier<T> loader) {
+        Key cacheKey = new Key(scope, key);
+        long version = versionOf(scope).get();
+        long now = System.nanoTime();
+        Entry<?> entry = entries.get(cacheKey);
+        if (entry != null && entry.version() == version && now - entry.expiresAt() < 0) {
+            return (Cached<T>) entry.cached();
+        }
+
+        T body = loader.get();
+        Cached<T> cached = new Cached<>(body, etagOf(body));
+        if (!ttl.isZero() && versionOf(scope).get() == version) {
+            if (entries.size() >= maxEntries) {
+                entries.values().removeIf(e -> now - e.expiresAt() >= 0);
+                if (entries.size() >= maxEntries) {
+                    entries.clear();
+                }
+            }
+            entries.put(cacheKey, new Entry<>(cached, version, now + ttl.toNanos()));
+        }
+        return cached;
+    }
+
+    /** Drops every cached report whose scope includes the given hotel. */
+    public void invalidate(Long hotelId, Long hotelGroupId) {
+        if (hotelId == null) {
+            return;
+        }
+        versions.forEach((scope, version) -> {
+            if (scope.covers(hotelId, hotelGroupId)) {
+                version.incrementAndGet();
+            }
+        });
+        entries.keySet().removeIf(key -> key.scope().covers(hotelId, hotelGroupId));
+    }
+
+    /** Drops everything, e.g. after the rollups behind the reports were rebuilt. */
+    public void clear() {
+        versions.values().forEach(AtomicLong::incrementAndGet);
+        entries.clear();
+    }
+
+    private AtomicLong versionOf(AccessScope scope) {
+        return versions.computeIfAbsent(scope, s -> new AtomicLong());
+    }
+
+    private String etagOf(Object body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(body));
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public record Cached<T>(T body, String etag) {
+    }
+
+    private record Key(AccessScope scope, String key) {
+    }
+
+    private record Entry<T>(Cached<T> cached, long version, long expiresAt) {
+    }
+}
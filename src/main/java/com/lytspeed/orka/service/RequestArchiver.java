@@ -0,0 +1,82 @@
+package com.lytspeed.orka.service;
+
+import com.lytspeed.orka.config.OrkaArchiveProperties;
+import com.lytspeed.orka.repository.ArchivedRequestRepository;
+import com.lytspeed.orka.repository.ArchivedRequestRollupRepository;
+import com.lytspeed.orka.repository.RequestRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Moves COMPLETED / CANCELLED requests older than {@code orka.archive.closed-after} from
+ * {@code requests} into {@code archived_requests}, adding them to the rollup counters the
+ * reports read for archived history.
+ *
+ * Each batch is its own short transaction and locks candidate rows with SKIP LOCKED, so
+ * live writes are never blocked behind the job. Only closed rows move, so the in-memory
+ * board is unaffected.
+ */
+@Service
+public class RequestArchiver {
+
+    private static final Logger log = LoggerFactory.getLogger(RequestArchiver.class);
+
+    private final RequestRepository requestRepository;
+    private final ArchivedRequestRepository archivedRequestRepository;
+    private final ArchivedRequestRollupRepository rollupRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final OrkaArchiveProperties properties;
+
+    public RequestArchiver(
+            RequestRepository requestRepository,
+            ArchivedRequestRepository archivedRequestRepository,
+            ArchivedRequestRollupRepository rollupRepository,
+            TransactionTemplate transactionTemplate,
+            OrkaArchiveProperties properties
+    ) {
+        this.requestRepository = requestRepository;
+        this.archivedRequestRepository = archivedRequestRepository;
+        this.rollupRepository = rollupRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+    }
+
+    @Scheduled(
+            initialDelayString = "${orka.archive.interval:PT10M}",
+            fixedDelayString = "${orka.archive.interval:PT10M}"
+    )
+    public void archiveClosedRequests() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minus(properties.getClosedAfter());
+        int archived = 0;
+        for (int batch = 0; batch < properties.getMaxBatchesPerRun(); batch++) {
+            Integer moved = transactionTemplate.execute(status -> archiveBatch(cutoff));
+            archived += moved == null ? 0 : moved;
+            if (moved == null || moved < properties.getBatchSize()) {
+                break;
+            }
+        }
+        if (archived > 0) {
+            log.info("Archived {} closed request(s) older than {}", archived, cutoff);
+        }
+    }
+
+    private int archiveBatch(LocalDateTime cutoff) {
+        List<Long> ids = requestRepository.lockArchivableIds(cutoff, properties.getBatchSize());
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        archivedRequestRepository.copyFromRequests(ids, LocalDateTime.now());
+        rollupRepository.addFromRequests(ids);
+        requestRepository.deleteAllByIdInBatch(ids);
+        return ids.size();
+    }
+}
@@ -0,0 +1,232 @@
+package com.lytspeed.orka.service;
+
+import com.lytspeed.orka.dto.RequestDto;
+import com.lytspeed.orka.dto.RequestRow;
+import com.lytspeed.orka.entity.enums.RequestStatus;
+import com.lytspeed.orka.event.RequestChangedEvent;
+import com.lytspeed.orka.repository.RequestRepository;
+import com.lytspeed.orka.repository.RequestSpecifications;
+import com.lytspeed.orka.security.AccessScope;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process board of active (NEW / ACCEPTED) requests, indexed by hotel and hotel group.
+ *
+ * Loaded while the application context starts, before the web server accepts requests, and
+ * kept current from committed {@link RequestChangedEvent}s, so the stream snapshot and the
+ * active list are served in O(scope size) without a database round trip. A scheduled check
+ * compares the board with the database and reloads it if they have drifted (e.g. rows
+ * changed outside this service).
+ *
+ * Writes are serialised on {@code this}; reads go straight to the concurrent maps. A load
+ * or reload builds a complete new index and publishes it with one reference swap, so a
+ * reader never sees an empty or half-built board.
+ */
+@Service
+public class RequestBoard implements InitializingBean {
+
+    private static final Logger log = LoggerFactory.getLogger(RequestBoard.class);
+
+    static final List<RequestStatus> ACTIVE_STATUSES = List.of(RequestStatus.NEW, RequestStatus.ACCEPTED);
+
+    private final RequestRepository requestRepository;
+    private final ThreadPoolTaskExecutor requestEventExecutor;
+
+    private volatile Index index = new Index();
+
+    public RequestBoard(
+            RequestRepository requestRepository,
+            @Qualifier("requestEventExecutor") ThreadPoolTaskExecutor requestEventExecutor
+    ) {
+        this.requestRepository = requestRepository;
+        this.requestEventExecutor = requestEventExecutor;
+    }
+
+    /** Runs before the web server starts, so the first clients already get a full snapshot. */
+    @Override
+    public void afterPropertiesSet() {
+        load();
+    }
+
+    public synchronized void load() {
+        Map<Long, BoardEntry> loaded = loadFromDatabase();
+        replaceAll(loaded);
+        log.info("Request board loaded with {} active request(s)", loaded.size());
+    }
+
+    /**
+     * Reloads the board if it no longer matches the database. Holds the write lock while
+     * reading so no change can be applied between the read and the comparison.
+     *
+     * Skipped while committed changes are still queued or running on the request event
+     * executor: the database already reflects them but the board does not yet, and counting
+     * that as drift would force a needless full reload. The next run checks again.
+     */
+    @Scheduled(
+            initialDelayString = "${orka.board.consistency-check-interval:PT5M}",
+            fixedDelayString = "${orka.board.consistency-check-interval:PT5M}"
+    )
+    public synchronized void checkConsistency() {
+        if (hasPendingEvents()) {
+            log.debug("Skipping request board consistency check; request events are still pending");
+            return;
+        }
+        Map<Long, BoardEntry> expected = loadFromDatabase();
+        if (hasPendingEvents()) {
+            // A change committed while we were reading; the board will catch up on its own.
+            return;
+        }
+        int drift = 0;
+        for (BoardEntry entry : expected.values()) {
+            BoardEntry current = index.byId.get(entry.id());
+            if (current == null || !Objects.equals(current.request().getVersion(), entry.request().getVersion())) {
+                drift++;
+            }
+        }
+        for (Long id : index.byId.keySet()) {
+            if (!expected.containsKey(id)) {
+                drift++;
+            }
+        }
+        if (drift > 0) {
+            log.warn("Request board drifted from the database by {} request(s); reloading", drift);
+            replaceAll(expected);
+        }
+    }
+
+    /** Applies a committed change. Stale changes (older version than the board) are ignored. */
+    public synchronized void apply(RequestChangedEvent event) {
+        Long id = event.requestId();
+        if (id == null) {
+            return;
+        }
+        RequestDto request = event.request();
+        Index current = index;
+        BoardEntry existing = current.byId.get(id);
+        if (event.type() == RequestChangedEvent.Type.DELETED || !isActive(request)) {
+            if (existing == null || !isOlder(request, existing.request())) {
+                current.remove(id);
+            }
+            return;
+        }
+        if (existing != null && isOlder(request, existing.request())) {
+            return;
+        }
+        current.put(new BoardEntry(request, event.hotelId(), event.hotelGroupId()));
+    }
+
+    /** Active requests visible to the given scope, oldest first. */
+    public List<RequestDto> snapshot(AccessScope scope) {
+        Index current = index;
+        Collection<BoardEntry> entries = switch (scope.level()) {
+            case ALL -> current.byId.values();
+            case HOTEL_GROUP -> current.lookup(current.idsByHotelGroup.get(scope.id()));
+            case HOTEL -> current.lookup(current.idsByHotel.get(scope.id()));
+            case NONE -> List.of();
+        };
+        return entries.stream()
+                .map(BoardEntry::request)
+                .sorted(Comparator.comparing(RequestDto::getId))
+                .toList();
+    }
+
+    public int size() {
+        return index.byId.size();
+    }
+
+    private boolean hasPendingEvents() {
+        return requestEventExecutor.getQueueSize() > 0 || requestEventExecutor.getActiveCount() > 0;
+    }
+
+    private Map<Long, BoardEntry> loadFromDatabase() {
+        Map<Long, BoardEntry> entries = new HashMap<>();
+        for (RequestRow row : requestRepository.findRows(RequestSpecifications.statusIn(ACTIVE_STATUSES), Sort.unsorted())) {
+            entries.put(row.id(), new BoardEntry(row.toDto(), row.hotelId(), row.hotelGroupId()));
+        }
+        return entries;
+    }
+
+    private void replaceAll(Map<Long, BoardEntry> entries) {
+        Index next = new Index();
+        entries.values().forEach(next::put);
+        index = next;
+    }
+
+    private static boolean isActive(RequestDto request) {
+        return request.getStatus() != null && ACTIVE_STATUSES.contains(request.getStatus());
+    }
+
+    private static boolean isOlder(RequestDto candidate, RequestDto current) {
+        return candidate.getVersion() != null
+                && current.getVersion() != null
+                && candidate.getVersion() < current.getVersion();
+    }
+
+    /**
+     * The board's maps. Mutated in place only by {@link #apply}; a reload builds a new one.
+     */
+    private static final class Index {
+        private final Map<Long, BoardEntry> byId = new ConcurrentHashMap<>();
+        private final Map<Long, Set<Long>> idsByHotel = new ConcurrentHashMap<>();
+        private final Map<Long, Set<Long>> idsByHotelGroup = new ConcurrentHashMap<>();
+
+        private List<BoardEntry> lookup(Set<Long> ids) {
+            if (ids == null) {
+                return List.of();
+            }
+            return ids.stream().map(byId::get).filter(Objects::nonNull).toList();
+        }
+
+        private void put(BoardEntry entry) {
+            remove(entry.id());
+            byId.put(entry.id(), entry);
+            if (entry.hotelId() != null) {
+                idsByHotel.computeIfAbsent(entry.hotelId(), key -> ConcurrentHashMap.newKeySet()).add(entry.id());
+            }
+            if (entry.hotelGroupId() != null) {
+                idsByHotelGroup.computeIfAbsent(entry.hotelGroupId(), key -> ConcurrentHashMap.newKeySet()).add(entry.id());
+            }
+        }
+
+        private void remove(Long id) {
+            BoardEntry previous = byId.remove(id);
+            if (previous == null) {
+                return;
+            }
+            if (previous.hotelId() != null) {
+                idsByHotel.computeIfPresent(previous.hotelId(), (key, ids) -> {
+                    ids.remove(id);
+                    return ids.isEmpty() ? null : ids;
+                });
+            }
+            if (previous.hotelGroupId() != null) {
+                idsByHotelGroup.computeIfPresent(previous.hotelGroupId(), (key, ids) -> {
+                    ids.remove(id);
+                    return ids.isEmpty() ? null : ids;
+                });
+            }
+        }
+    }
+
+    private record BoardEntry(RequestDto request, Long hotelId, Long hotelGroupId) {
+        Long id() {
+            return request.getId();
+        }
+    }
+}
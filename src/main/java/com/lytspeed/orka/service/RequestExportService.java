@@ -0,0 +1,120 @@
+package com.lytspeed.orka.service;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import com.lytspeed.orka.dto.RequestDto;
+import com.lytspeed.orka.dto.RequestRow;
+import com.lytspeed.orka.dto.RequestSearchRequest;
+import com.lytspeed.orka.repository.RequestRepository;
+import com.lytspeed.orka.repository.RequestSpecifications;
+import com.lytspeed.orka.security.AccessScope;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes request history (live and archived) straight to an output stream. Rows are flat
+ * projections read through a server-side cursor, written and dropped one at a time, so
+ * memory stays flat however many rows match.
+ *
+ * Both reads run in one REPEATABLE READ snapshot, so a request archived mid-export is
+ * neither missed nor written twice.
+ */
+@Service
+public class RequestExportService {
+
+    public enum Format { CSV, NDJSON }
+
+    private static final int FETCH_SIZE = 500;
+
+    private static final String CSV_HEADER = "id,hotelId,hotelName,roomId,roomNumber,floor,type,status,message,"
+            + "createdAt,acceptedAt,completedAt,assigneeId,assigneeName,rating,comments,archived";
+
+    private final RequestRepository requestRepository;
+    private final ObjectMapper objectMapper;
+
+    public RequestExportService(RequestRepository requestRepository, ObjectMapper objectMapper) {
+        this.requestRepository = requestRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /** Writes every request in scope matching the filter (cursor and limit ignored); returns the row count. */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public long export(AccessScope scope, RequestSearchRequest filter, Format format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (format == Format.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+        long count;
+        try (Stream<RequestRow> live = requestRepository.streamRows(
+                RequestSpecifications.search(scope, filter, null), RequestSpecifications.KEYSET_ORDER, FETCH_SIZE)) {
+            count = write(live, false, format, writer);
+        }
+        try (Stream<RequestRow> archived = requestRepository.streamArchivedRows(scope, filter, FETCH_SIZE)) {
+            count += write(archived, true, format, writer);
+        }
+        writer.flush();
+        return count;
+    }
+
+    private long write(Stream<RequestRow> rows, boolean archived, Format format, Writer writer) throws IOException {
+        long count = 0;
+        for (Iterator<RequestRow> it = rows.iterator(); it.hasNext(); count++) {
+            RequestRow row = it.next();
+            if (format == Format.NDJSON) {
+                writer.write(objectMapper.writeValueAsString(new NdjsonRow(row.toDto(), archived)));
+            } else {
+                writeCsv(row, archived, writer);
+            }
+            writer.write('\n');
+        }
+        return count;
+    }
+
+    private static void writeCsv(RequestRow row, boolean archived, Writer writer) throws IOException {
+        Object[] cells = {
+                row.id(), row.hotelId(), row.hotelName(), row.roomId(), row.roomNumber(), row.roomFloor(),
+                row.type(), row.status(), row.message(),
+                row.createdAt(), row.acceptedAt(), row.completedAt(),
+                row.assigneeId(), row.assigneeName(), row.rating(), row.comments(), archived
+        };
+        for (int i = 0; i < cells.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(csvCell(cells[i]));
+        }
+    }
+
+    /** A request as the API returns it, plus the archived flag the CSV also carries. */
+    private record NdjsonRow(@JsonUnwrapped RequestDto request, boolean archived) {
+    }
+
+    /**
+     * Quotes cells that need it and defuses text that a spreadsheet would run as a formula
+     * (guest messages and comments are free text).
+     */
+    static String csvCell(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (value instanceof String && !text.isEmpty() && "=+-@\t\r".indexOf(text.charAt(0)) >= 0) {
+            text = "'" + text;
+        }
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+        return text;
+    }
+}
@@ -0,0 +1,237 @@
+package com.lytspeed.orka.service;
+
+import com.lytspeed.orka.entity.Hotel;
+import com.lytspeed.orka.entity.Request;
+import com.lytspeed.orka.entity.enums.LatencyMetric;
+import com.lytspeed.orka.model.LatencyHistogram;
+import com.lytspeed.orka.repository.RequestHourlyRollupRepository;
+import com.lytspeed.orka.repository.RequestLatencyBucketRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Keeps {@code request_hourly_rollups} and the {@code request_latency_buckets} histograms in
+ * step with request writes.
+ *
+ * Callers take a {@link Contribution} of the request before they change it and hand it to
+ * {@link #replace} together with the contribution after the change, inside the same
+ * transaction. The old contribution is subtracted and the new one added, so a request is
+ * always counted exactly once, under its current status. Latency samples only move when a
+ * request's accept or complete minutes change, so plain status edits cost no histogram write.
+ *
+ * Upserts are issued in bucket-key order, rollups before histograms, so two transactions
+ * moving requests between the same buckets in opposite directions lock them in the same
+ * order instead of deadlocking.
+ */
+@Service
+public class RequestRollupService {
+
+    private static final Logger log = LoggerFactory.getLogger(RequestRollupService.class);
+
+    private static final Comparator<Contribution> ROLLUP_KEY_ORDER = Comparator
+            .comparing(Contribution::hotelId)
+            .thenComparing(Contribution::bucketHour)
+            .thenComparing(Contribution::type, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(Contribution::status, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private static final Comparator<LatencySample> LATENCY_KEY_ORDER = Comparator
+            .comparing(LatencySample::hotelId)
+            .thenComparing(LatencySample::type, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(LatencySample::metric)
+            .thenComparingInt(LatencySample::bucket);
+
+    private final RequestHourlyRollupRepository rollupRepository;
+    private final RequestLatencyBucketRepository latencyBucketRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public RequestRollupService(
+            RequestHourlyRollupRepository rollupRepository,
+            RequestLatencyBucketRepository latencyBucketRepository,
+            TransactionTemplate transactionTemplate
+    ) {
+        this.rollupRepository = rollupRepository;
+        this.latencyBucketRepository = latencyBucketRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /** What a request currently adds to its rollup bucket; null if it has no bucket (no hotel or createdAt). */
+    public static Contribution contributionOf(Request request) {
+        if (request == null || request.getHotel() == null || request.getCreatedAt() == null) {
+            return null;
+        }
+        Hotel hotel = request.getHotel();
+        boolean accepted = request.getAcceptedAt() != null;
+        boolean completed = accepted && request.getCompletedAt() != null;
+        return new Contribution(
+                hotel.getId(),
+                hotel.getHotelGroup() == null ? null : hotel.getHotelGroup().getId(),
+                request.getCreatedAt().truncatedTo(ChronoUnit.HOURS),
+                request.getType() == null ? null : request.getType().name(),
+                request.getStatus() == null ? null : request.getStatus().name(),
+                accepted ? Duration.between(request.getCreatedAt(), request.getAcceptedAt()).toMinutes() : 0,
+                accepted ? 1 : 0,
+                completed ? Duration.between(request.getAcceptedAt(), request.getCompletedAt()).toMinutes() : 0,
+                completed ? 1 : 0,
+                request.getRating() == null ? 0 : request.getRating(),
+                request.getRating() == null ? 0 : 1
+        );
+    }
+
+    /** Swaps a request's previous contribution for its new one; either side may be null. */
+    public void replace(Contribution before, Contribution after) {
+        if (Objects.equals(before, after)) {
+            return;
+        }
+        List<Map.Entry<Contribution, Integer>> rollups = new ArrayList<>(2);
+        if (before != null) {
+            rollups.add(new SimpleEntry<>(before, -1));
+        }
+        if (after != null) {
+            rollups.add(new SimpleEntry<>(after, 1));
+        }
+        rollups.sort(Map.Entry.comparingByKey(ROLLUP_KEY_ORDER));
+        rollups.forEach(delta -> add(delta.getKey(), delta.getValue()));
+
+        List<Map.Entry<LatencySample, Long>> samples = new ArrayList<>(4);
+        for (LatencyMetric metric : LatencyMetric.values()) {
+            LatencySample previous = LatencySample.of(before, metric);
+            LatencySample current = LatencySample.of(after, metric);
+            if (Objects.equals(previous, current)) {
+                continue;
+            }
+            if (previous != null) {
+                samples.add(new SimpleEntry<>(previous, -1L));
+            }
+            if (current != null) {
+                samples.add(new SimpleEntry<>(current, 1L));
+            }
+        }
+        samples.sort(Map.Entry.comparingByKey(LATENCY_KEY_ORDER));
+        samples.forEach(delta -> add(delta.getKey(), delta.getValue()));
+    }
+
+    /** Fills the rollups and histograms from existing requests the first time they start out empty. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (rollupRepository.count() == 0) {
+            backfill();
+        }
+        if (latencyBucketRepository.count() == 0) {
+            backfillLatencies();
+        }
+    }
+
+    /** Recomputes every bucket from live and archived requests. Concurrent writers wait for it. */
+    public int backfill() {
+        Integer rows = transactionTemplate.execute(status -> {
+            rollupRepository.lockExclusive();
+            rollupRepository.deleteAllRows();
+            return rollupRepository.rebuildFromRequests();
+        });
+        log.info("Request hourly rollups rebuilt: {} bucket(s)", rows);
+        return rows == null ? 0 : rows;
+    }
+
+    /**
+     * Recomputes the latency histograms from live and archived requests. Requests are streamed
+     * and folded into buckets in memory, which stay few (hotels × types × ~100 buckets).
+     */
+    public int backfillLatencies() {
+        Integer rows = transactionTemplate.execute(status -> {
+            latencyBucketRepository.lockExclusive();
+            latencyBucketRepository.deleteAllRows();
+            Map<LatencySample, Long> counts = new HashMap<>();
+            try (Stream<Object[]> latencies = latencyBucketRepository.streamLatencies()) {
+                latencies.forEach(row -> {
+                    Long hotelId = ((Number) row[0]).longValue();
+                    Long hotelGroupId = row[1] == null ? null : ((Number) row[1]).longValue();
+                    String type = row[2] == null ? null : row[2].toString();
+                    counts.merge(new LatencySample(hotelId, hotelGroupId, type, LatencyMetric.ACCEPT,
+                            LatencyHistogram.bucketOf(((Number) row[3]).longValue())), 1L, Long::sum);
+                    if (row[4] != null) {
+                        counts.merge(new LatencySample(hotelId, hotelGroupId, type, LatencyMetric.COMPLETE,
+                                LatencyHistogram.bucketOf(((Number) row[4]).longValue())), 1L, Long::sum);
+                    }
+                });
+            }
+            counts.forEach(this::add);
+            return counts.size();
+        });
+        log.info("Request latency histograms rebuilt: {} bucket(s)", rows);
+        return rows == null ? 0 : rows;
+    }
+
+    private void add(LatencySample sample, long count) {
+        latencyBucketRepository.add(
+                sample.hotelId(),
+                sample.hotelGroupId(),
+                sample.type(),
+                sample.metric().name(),
+                sample.bucket(),
+                count
+        );
+    }
+
+    private void add(Contribution c, int sign) {
+        rollupRepository.add(
+                c.hotelId(),
+                c.hotelGroupId(),
+                c.bucketHour(),
+                c.type(),
+                c.status(),
+                sign,
+                sign * c.acceptMinutes(),
+                sign * c.acceptCount(),
+                sign * c.completeMinutes(),
+                sign * c.completeCount(),
+                sign * c.rating(),
+                sign * c.ratingCount()
+        );
+    }
+
+    public record Contribution(
+            Long hotelId,
+            Long hotelGroupId,
+            LocalDateTime bucketHour,
+            String type,
+            String status,
+            long acceptMinutes,
+            long acceptCount,
+            long completeMinutes,
+            long completeCount,
+            long rating,
+            long ratingCount
+    ) {
+    }
+
+    private record LatencySample(Long hotelId, Long hotelGroupId, String type, LatencyMetric metric, int bucket) {
+
+        static LatencySample of(Contribution c, LatencyMetric metric) {
+            if (c == null) {
+                return null;
+            }
+            boolean accept = metric == LatencyMetric.ACCEPT;
+            if ((accept ? c.acceptCount() : c.completeCount()) == 0) {
+                return null;
+            }
+            long minutes = accept ? c.acceptMinutes() : c.completeMinutes();
+            return new LatencySample(c.hotelId(), c.hotelGroupId(), c.type(), metric, LatencyHistogram.bucketOf(minutes));
+        }
+    }
+}
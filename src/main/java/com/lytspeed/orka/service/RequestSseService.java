@@ -1,54 +1,119 @@
 package com.lytspeed.orka.service;
 
-import com.lytspeed.orka.dto.AppUserSummaryDto;
-import com.lytspeed.orka.dto.HotelSummaryDto;
+import com.lytspeed.orka.config.OrkaSseProperties;
 import com.lytspeed.orka.dto.RequestDto;
-import com.lytspeed.orka.dto.RoomSummaryDto;
 import com.lytspeed.orka.entity.AppUser;
-import com.lytspeed.orka.entity.Hotel;
-import com.lytspeed.orka.entity.Request;
-import com.lytspeed.orka.entity.Room;
+import com.lytspeed.orka.event.RequestChangedEvent;
+import com.lytspeed.orka.security.AccessScope;
 import com.lytspeed.orka.security.AccessScopeService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tools.jackson.databind.ObjectMapper;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.stream.Collectors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Manages Server-Sent Event emitters for the requests board.
  *
  * Each authenticated staff member/admin can open a long-lived GET /api/requests/stream
- * connection.  Whenever any request is created, updated, or deleted the controller
- * calls {@link #broadcast(List)} which fans out the scoped request list to every
- * connected client over their individual SseEmitter.
+ * connection.  On connect the client receives one full snapshot of its scoped request
+ * list.  After that, every create, update, or delete is pushed as a delta event that
+ * carries only the changed request, so the cost of a broadcast depends on the size of
+ * the change rather than the size of the table.
  *
- * SseEmitters are stored in a thread-safe {@link CopyOnWriteArrayList}.  Stale emitters
- * (client disconnected, timed out, or errored) are removed automatically via the
+ * SseEmitters are grouped by {@link AccessScope} (superadmin / hotel group / hotel), each
+ * group held in a thread-safe {@link CopyOnWriteArrayList}.  Everyone in a group sees the
+ * same data, so scope checks and JSON encoding happen once per scope and the resulting
+ * bytes are written to every emitter in it.  Broadcast CPU grows with the number of
+ * distinct scopes, not the number of connected devices.  Stale emitters (client
+ * disconnected, timed out, or errored) are removed automatically via the
  * completion/timeout/error callbacks.
  *
- * Broadcast format: named event "requests", data = JSON array of RequestDto.
- * Frontend listens with:  eventSource.addEventListener('requests', handler)
+ * Every event carries an id of the form "{epoch}-{sequence}".  The most recent delta
+ * events are kept in a bounded replay buffer; a client that reconnects with
+ * Last-Event-ID receives only the deltas it missed.  If the id belongs to a previous
+ * process (epoch mismatch) or is older than the buffer, a fresh snapshot is sent.  So is
+ * a client that missed as many events as its queue holds: replaying them would only
+ * evict it again.  The buffer is never larger than the per-client queue.
+ *
+ * Sends never run on the caller's thread.  Each emitter has its own bounded FIFO
+ * queue which is drained by a small shared sender pool, so one slow mobile client
+ * only delays itself.  An emitter whose queue overflows is evicted; its EventSource
+ * reconnects with Last-Event-ID and resyncs from the replay buffer or a snapshot.
+ *
+ * Bursts of mutations are coalesced: changes arriving within a short window are merged
+ * per request (create+update = create, create+delete = nothing, ...) and broadcast as one
+ * batch, written to each client in a single send.  A change is never held longer than
+ * the window.
+ *
+ * Event format:
+ *   "requests"         data = JSON array of RequestDto (snapshot, sent on connect)
+ *   "request-created"  data = RequestDto
+ *   "request-updated"  data = RequestDto
+ *   "request-deleted"  data = RequestDto (last known state of the removed request)
+ * Frontend listens with:  eventSource.addEventListener('request-updated', handler)
  */
 @Service
 public class RequestSseService {
 
     private static final Logger log = LoggerFactory.getLogger(RequestSseService.class);
 
+    static final String SNAPSHOT_EVENT = "requests";
+    static final String CREATED_EVENT = "request-created";
+    static final String UPDATED_EVENT = "request-updated";
+    static final String DELETED_EVENT = "request-deleted";
+
+    /** Events an emitter may drain in one go before yielding its sender thread. */
+    private static final int DRAIN_BATCH_SIZE = 64;
+
     private final AccessScopeService accessScopeService;
+    private final ObjectMapper objectMapper;
+    private final Supplier<SseEmitter> emitterFactory;
+    private final int replayBufferSize;
+    private final int maxQueuedEvents;
+
+    /** (AppUser, SseEmitter) pairs grouped by the scope of the user. */
+    private final Map<AccessScope, CopyOnWriteArrayList<EmitterEntry>> emittersByScope = new ConcurrentHashMap<>();
 
-    /** Thread-safe list of (AppUser, SseEmitter) pairs. */
-    private final CopyOnWriteArrayList<EmitterEntry> emitters = new CopyOnWriteArrayList<>();
+    /**
+     * Identifies this process in event ids so ids handed out before a restart are
+     * never mistaken for ids in the current sequence.
+     */
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
 
     /**
-     * Single-threaded executor for ALL SseEmitter.send() calls.
+     * Recent delta events, oldest first, capped at {@link #replayBufferSize}.
+     * Guarded by {@code this}; the same lock serialises id assignment and
+     * enqueueing so every emitter queue receives events in id order.
+     */
+    private final Deque<BufferedEvent> replayBuffer = new ArrayDeque<>();
+    private long lastSequence = 0L;
+
+    /**
+     * Shared pool that drains the per-emitter queues.
      *
      * This is the critical design choice: Spring MVC's SseEmitter must NOT have
      * send() called from the same Tomcat thread that returned the emitter. If a
@@ -58,21 +123,67 @@ public class RequestSseService {
      * silently dropping the emitter from the list. The client then auto-reconnects
      * after ~3s, which is why the first mutation always seems "missed".
      *
-     * By routing all sends through this executor the HTTP handler thread returns
+     * By routing all sends through this pool the HTTP handler thread returns
      * the emitter first, Spring initializes the async context, and only THEN does
-     * the executor thread run the sends — always in the correct order.
+     * a sender thread run the sends.
      *
-     * Single-thread also guarantees ordering: initial snapshot is always delivered
-     * before the first broadcast (FIFO queue).
+     * Ordering is per emitter: at most one sender thread drains a given queue at a
+     * time (see {@link EmitterEntry#draining}), so the initial snapshot is always
+     * delivered before the first broadcast (FIFO queue). Different emitters are
+     * drained concurrently.
      */
-    private final ExecutorService sseExecutor = Executors.newSingleThreadExecutor(r -> {
-        Thread t = new Thread(r, "sse-sender");
+    private final ExecutorService sseExecutor;
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    private final Duration coalesceWindow;
+
+    /**
+     * Changes waiting for the current coalescing window to close, keyed by request id
+     * so repeated changes to one request collapse into a single delta.
+     */
+    private final Map<Long, RequestChangedEvent> pendingChanges = new LinkedHashMap<>();
+    /** Guarded by {@link #pendingChanges}. */
+    private boolean windowOpen;
+    private final ScheduledExecutorService coalesceScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "sse-coalescer");
         t.setDaemon(true);
         return t;
     });
 
-    public RequestSseService(AccessScopeService accessScopeService) {
+    public RequestSseService(
+            AccessScopeService accessScopeService,
+            ObjectMapper objectMapper,
+            OrkaSseProperties sseProperties
+    ) {
+        this(accessScopeService, objectMapper, sseProperties, () -> new SseEmitter(0L));
+    }
+
+    RequestSseService(
+            AccessScopeService accessScopeService,
+            ObjectMapper objectMapper,
+            OrkaSseProperties sseProperties,
+            Supplier<SseEmitter> emitterFactory
+    ) {
         this.accessScopeService = accessScopeService;
+        this.objectMapper = objectMapper;
+        this.emitterFactory = emitterFactory;
+        this.maxQueuedEvents = Math.max(1, sseProperties.getMaxQueuedEvents());
+        int replayBufferSize = Math.max(0, sseProperties.getReplayBufferSize());
+        if (replayBufferSize > maxQueuedEvents) {
+            // A replay longer than the queue would evict the client it is meant to resume.
+            log.warn("SSE: replay-buffer-size {} exceeds max-queued-events {}; clamping to {}",
+                    replayBufferSize, maxQueuedEvents, maxQueuedEvents);
+            replayBufferSize = maxQueuedEvents;
+        }
+        this.replayBufferSize = replayBufferSize;
+        this.coalesceWindow = sseProperties.getCoalesceWindow() == null ? Duration.ZERO : sseProperties.getCoalesceWindow();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.sseExecutor = Executors.newFixedThreadPool(Math.max(1, sseProperties.getSenderThreads()), r -> {
+            Thread t = new Thread(r, "sse-sender-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
     }
 
     // -------------------------------------------------------------------------
@@ -81,173 +192,423 @@ public class RequestSseService {
 
     /**
      * Registers an SseEmitter for the given authenticated user and schedules
-     * the initial snapshot to be sent from the background executor thread.
+     * either a replay of missed deltas or the initial snapshot to be sent from
+     * the background executor thread.
      *
      * The emitter is returned to Spring BEFORE any send() is attempted.
      * This guarantees Spring has fully initialized the async context by the
      * time the executor thread writes the first event.
      *
-     * @param user        authenticated actor
-     * @param allRequests full unfiltered list from the repository
+     * @param user            authenticated actor
+     * @param lastEventId     Last-Event-ID sent by a reconnecting EventSource (may be null)
+     * @param snapshotLoader  loads the requests visible to a scope; only called when
+     *                        the client cannot be resumed from the replay buffer
      */
-    public SseEmitter registerAndSendInitial(AppUser user, List<Request> allRequests) {
-        SseEmitter emitter = new SseEmitter(0L);
-        EmitterEntry entry = new EmitterEntry(user, emitter);
+    public SseEmitter register(
+            AppUser user,
+            String lastEventId,
+            Function<AccessScope, List<RequestDto>> snapshotLoader
+    ) {
+        SseEmitter emitter = emitterFactory.get();
+        AccessScope scope = accessScopeService.scopeOf(user);
+        EmitterEntry entry = new EmitterEntry(user, scope, emitter);
 
         emitter.onCompletion(() -> {
-            emitters.remove(entry);
-            log.debug("SSE: emitter completed for user={} total={}", user.getId(), emitters.size());
+            remove(entry);
+            log.debug("SSE: emitter completed for user={} total={}", user.getId(), connectedCount());
         });
         emitter.onTimeout(() -> {
             emitter.complete();
-            emitters.remove(entry);
+            remove(entry);
             log.debug("SSE: emitter timed-out for user={}", user.getId());
         });
         emitter.onError(e -> {
             emitter.complete();
-            emitters.remove(entry);
+            remove(entry);
             log.debug("SSE: emitter error for user={}: {}", user.getId(), e.getMessage());
         });
 
-        emitters.add(entry);
-        log.debug("SSE: registered emitter for user={} total={}", user.getId(), emitters.size());
-
-        // Pre-build the scoped DTO list on the calling thread (within the JPA
-        // session / HTTP thread) before handing off to the executor.
-        List<RequestDto> scoped = accessScopeService
-                .filterRequests(user, allRequests)
-                .stream()
-                .map(RequestSseService::toDto)
-                .collect(Collectors.toList());
-
-        // Schedule the actual send on the background executor. By the time this
-        // task runs, Spring will have called emitter.initialize() and the async
-        // response is fully committed — send() is safe.
-        sseExecutor.submit(() -> {
-            try {
-                emitter.send(
-                        SseEmitter.event()
-                                .name("requests")
-                                .data(scoped, MediaType.APPLICATION_JSON)
-                );
-                log.debug("SSE: initial snapshot sent to user={}", user.getId());
-            } catch (IOException | IllegalStateException e) {
-                log.debug("SSE: initial send failed for user={}: {}", user.getId(), e.getMessage());
-                emitter.completeWithError(e);
+        Long resumeFrom = parseSequence(lastEventId);
+        synchronized (this) {
+            if (resumeFrom != null && canResumeFrom(resumeFrom)) {
+                List<OutboundEvent> missed = replayAfter(resumeFrom, scope);
+                if (missed.size() < maxQueuedEvents) {
+                    add(entry);
+                    enqueue(entry, missed);
+                    log.debug("SSE: resumed user={} from {} with {} missed event(s)",
+                            user.getId(), lastEventId, missed.size());
+                    return emitter;
+                }
+                // Replaying would fill the queue and evict the client straight away,
+                // and its EventSource would reconnect with the same id forever.
+                log.debug("SSE: user={} missed {} event(s) since {}; sending a snapshot instead",
+                        user.getId(), missed.size(), lastEventId);
             }
-        });
+        }
+
+        // Snapshot path. Remember the sequence before loading so deltas sequenced
+        // while the snapshot is built are replayed on top of it. The loader may
+        // already reflect some of them; deltas are idempotent upserts for clients.
+        long snapshotSequence;
+        synchronized (this) {
+            snapshotSequence = lastSequence;
+        }
+
+        // Pre-build the scoped snapshot on the calling thread before handing off
+        // to the sender pool.
+        List<RequestDto> scoped = snapshotLoader.apply(scope);
+        byte[] payload = objectMapper.writeValueAsBytes(scoped);
+
+        synchronized (this) {
+            add(entry);
+            List<OutboundEvent> events = new ArrayList<>();
+            events.add(new OutboundEvent(eventId(snapshotSequence), SNAPSHOT_EVENT, payload));
+            events.addAll(replayAfter(snapshotSequence, scope));
+            // Queue the actual send for the sender pool. By the time it runs,
+            // Spring will have called emitter.initialize() and the async
+            // response is fully committed — send() is safe.
+            enqueue(entry, events);
+        }
+        log.debug("SSE: registered emitter for user={} scope={} total={}", user.getId(), scope, connectedCount());
 
         return emitter;
     }
 
     /**
-     * Fans out the scoped request list to every connected client.
-     * Runs on the background executor — never blocks the calling HTTP thread.
+     * Pushes a change to every client whose scope covers the request. Updates that
+     * moved the request to another hotel are sent as "request-deleted" to clients that
+     * could only see the previous hotel, so their board stays consistent.
+     *
+     * The change joins the current coalescing window, opening a window if none is
+     * pending. The window is never extended, so no change waits longer than
+     * {@link #coalesceWindow}. With a zero window changes are broadcast immediately.
      *
-     * @param allRequests full un-filtered list from the repository
+     * @param change snapshot of the committed change
      */
-    public void broadcast(List<Request> allRequests) {
-        if (emitters.isEmpty()) {
+    public void publish(RequestChangedEvent change) {
+        if (coalesceWindow.isZero() || coalesceWindow.isNegative()) {
+            broadcastChanges(List.of(change));
             return;
         }
+        boolean openWindow;
+        synchronized (pendingChanges) {
+            openWindow = !windowOpen;
+            windowOpen = true;
+            Long requestId = change.requestId();
+            RequestChangedEvent pending = pendingChanges.get(requestId);
+            if (pending == null) {
+                pendingChanges.put(requestId, change);
+            } else {
+                RequestChangedEvent merged = pending.followedBy(change);
+                if (merged == null) {
+                    pendingChanges.remove(requestId);
+                } else {
+                    pendingChanges.put(requestId, merged);
+                }
+            }
+        }
+        if (openWindow) {
+            coalesceScheduler.schedule(this::flushPendingChanges, coalesceWindow.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void flushPendingChanges() {
+        List<RequestChangedEvent> changes;
+        synchronized (pendingChanges) {
+            changes = new ArrayList<>(pendingChanges.values());
+            pendingChanges.clear();
+            windowOpen = false;
+        }
+        try {
+            broadcastChanges(changes);
+        } catch (RuntimeException e) {
+            log.warn("SSE: broadcast of {} coalesced change(s) failed: {}", changes.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Assigns ids to the changes, records them for replay, and queues one batch per
+     * scope group. Each emitter receives the whole batch as a single write.
+     */
+    private void broadcastChanges(List<RequestChangedEvent> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+
+        // Encode each single-request payload once; every scope that receives it
+        // shares the same bytes and only the event name can differ per scope.
+        List<byte[]> payloads = changes.stream()
+                .map(change -> objectMapper.writeValueAsBytes(change.request()))
+                .toList();
 
-        // Pre-build per-user scoped DTOs on the calling thread, then dispatch.
-        List<PendingBroadcast> payloads = emitters.stream()
-                .map(entry -> new PendingBroadcast(
-                        entry,
-                        accessScopeService
-                                .filterRequests(entry.user(), allRequests)
-                                .stream()
-                                .map(RequestSseService::toDto)
-                                .collect(Collectors.toList())
-                ))
-                .collect(Collectors.toList());
-
-        sseExecutor.submit(() -> {
-            log.debug("SSE: broadcasting to {} client(s)", payloads.size());
-            for (PendingBroadcast pb : payloads) {
-                try {
-                    pb.entry().emitter().send(
-                            SseEmitter.event()
-                                    .name("requests")
-                                    .data(pb.scoped(), MediaType.APPLICATION_JSON)
-                    );
-                } catch (IOException | IllegalStateException e) {
-                    log.debug("SSE: send failed for user={}, removing: {}",
-                            pb.entry().user().getId(), e.getMessage());
-                    pb.entry().emitter().completeWithError(e);
-                    emitters.remove(pb.entry());
+        synchronized (this) {
+            List<BufferedEvent> events = new ArrayList<>(changes.size());
+            for (int i = 0; i < changes.size(); i++) {
+                BufferedEvent event = new BufferedEvent(++lastSequence, changes.get(i), payloads.get(i));
+                events.add(event);
+                if (replayBufferSize > 0) {
+                    replayBuffer.addLast(event);
                 }
             }
-        });
+            while (replayBuffer.size() > replayBufferSize) {
+                replayBuffer.removeFirst();
+            }
+
+            // Enqueue while still holding the lock so every emitter queue receives
+            // deltas in id order.
+            int scopes = 0;
+            for (Map.Entry<AccessScope, CopyOnWriteArrayList<EmitterEntry>> group : emittersByScope.entrySet()) {
+                List<OutboundEvent> batch = new ArrayList<>();
+                for (BufferedEvent event : events) {
+                    OutboundEvent outbound = toOutbound(event, group.getKey());
+                    if (outbound != null) {
+                        batch.add(outbound);
+                    }
+                }
+                if (batch.isEmpty()) {
+                    continue;
+                }
+                for (EmitterEntry entry : group.getValue()) {
+                    enqueue(entry, batch);
+                }
+                scopes++;
+            }
+            log.debug("SSE: queued {} change(s) to {} scope(s)", changes.size(), scopes);
+        }
     }
 
     /** Returns the number of currently connected SSE clients. */
     public int connectedCount() {
-        return emitters.size();
+        return emittersByScope.values().stream().mapToInt(List::size).sum();
+    }
+
+    /** Sender health: connected clients, queued events, and overflow evictions. */
+    public Map<String, Object> stats() {
+        int connected = 0;
+        int queued = 0;
+        int maxQueueDepth = 0;
+        for (List<EmitterEntry> group : emittersByScope.values()) {
+            for (EmitterEntry entry : group) {
+                int depth = entry.queueDepth();
+                connected++;
+                queued += depth;
+                maxQueueDepth = Math.max(maxQueueDepth, depth);
+            }
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("connected", connected);
+        stats.put("scopes", emittersByScope.size());
+        stats.put("queuedEvents", queued);
+        stats.put("maxQueueDepth", maxQueueDepth);
+        stats.put("queueCapacity", maxQueuedEvents);
+        stats.put("evictions", evictions.get());
+        return stats;
     }
 
     // -------------------------------------------------------------------------
-    // DTO conversion
+    // Replay buffer
     // -------------------------------------------------------------------------
 
-    static RequestDto toDto(Request request) {
-        HotelSummaryDto hotelDto = null;
-        if (request.getHotel() != null) {
-            Hotel hotel = request.getHotel();
-            hotelDto = new HotelSummaryDto(
-                    hotel.getId(),
-                    hotel.getName(),
-                    hotel.getCode(),
-                    hotel.getCity(),
-                    hotel.getCountry()
-            );
-        }
-
-        RoomSummaryDto roomDto = null;
-        if (request.getRoom() != null) {
-            Room room = request.getRoom();
-            roomDto = new RoomSummaryDto(
-                    room.getId(),
-                    room.getNumber(),
-                    room.getFloor()
-            );
-        }
-
-        AppUserSummaryDto assigneeDto = null;
-        if (request.getAssignee() != null) {
-            AppUser assignee = request.getAssignee();
-            assigneeDto = new AppUserSummaryDto(
-                    assignee.getId(),
-                    assignee.getName(),
-                    assignee.getEmployeeRole(),
-                    assignee.getAccessRole(),
-                    Boolean.TRUE.equals(assignee.getActive())
-            );
-        }
-
-        return new RequestDto(
-                request.getId(),
-            request.getVersion(),
-                hotelDto,
-                roomDto,
-                request.getType(),
-                request.getMessage(),
-                request.getStatus(),
-                request.getCreatedAt(),
-                request.getAcceptedAt(),
-                request.getCompletedAt(),
-                assigneeDto,
-                request.getRating(),
-                request.getComments()
-        );
+    /** Must hold {@code this}. */
+    private boolean canResumeFrom(long sequence) {
+        if (sequence > lastSequence) {
+            return false;
+        }
+        if (sequence == lastSequence) {
+            return true;
+        }
+        // The next event the client needs must still be in the buffer.
+        return !replayBuffer.isEmpty() && replayBuffer.peekFirst().sequence() <= sequence + 1;
+    }
+
+    /** Must hold {@code this}. */
+    private List<OutboundEvent> replayAfter(long sequence, AccessScope scope) {
+        List<OutboundEvent> events = new ArrayList<>();
+        for (BufferedEvent event : replayBuffer) {
+            if (event.sequence() <= sequence) {
+                continue;
+            }
+            OutboundEvent outbound = toOutbound(event, scope);
+            if (outbound != null) {
+                events.add(outbound);
+            }
+        }
+        return events;
+    }
+
+    private String eventId(long sequence) {
+        return epoch + "-" + sequence;
+    }
+
+    /** The event as it should be sent to the given scope, or null if the scope is not affected. */
+    private OutboundEvent toOutbound(BufferedEvent event, AccessScope scope) {
+        RequestChangedEvent.Type type = event.change().typeFor(scope);
+        return type == null ? null : new OutboundEvent(eventId(event.sequence()), eventName(type), event.payload());
+    }
+
+    private static String eventName(RequestChangedEvent.Type type) {
+        return switch (type) {
+            case CREATED -> CREATED_EVENT;
+            case UPDATED -> UPDATED_EVENT;
+            case DELETED -> DELETED_EVENT;
+        };
+    }
+
+    /** Returns the sequence encoded in a Last-Event-ID of this process, or null. */
+    private Long parseSequence(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return null;
+        }
+        String value = lastEventId.trim();
+        int separator = value.lastIndexOf('-');
+        if (separator <= 0 || !epoch.equals(value.substring(0, separator))) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Sending
+    // -------------------------------------------------------------------------
+
+    private void add(EmitterEntry entry) {
+        // Add inside compute() so a concurrent remove() cannot drop the group
+        // between lookup and add.
+        emittersByScope.compute(entry.scope, (key, entries) -> {
+            CopyOnWriteArrayList<EmitterEntry> group = entries == null ? new CopyOnWriteArrayList<>() : entries;
+            group.add(entry);
+            return group;
+        });
+    }
+
+    private void remove(EmitterEntry entry) {
+        emittersByScope.computeIfPresent(entry.scope, (scope, entries) -> {
+            entries.remove(entry);
+            return entries.isEmpty() ? null : entries;
+        });
+    }
+
+    /**
+     * Appends events to the emitter's queue and schedules a drain if none is running.
+     * If the queue would exceed its capacity the emitter is evicted instead.
+     */
+    private void enqueue(EmitterEntry entry, List<OutboundEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        boolean overflow = false;
+        boolean schedule = false;
+        synchronized (entry) {
+            if (entry.closed) {
+                return;
+            }
+            if (entry.queue.size() + events.size() > maxQueuedEvents) {
+                entry.closed = true;
+                entry.queue.clear();
+                overflow = true;
+            } else {
+                entry.queue.addAll(events);
+                schedule = !entry.draining;
+                entry.draining = true;
+            }
+        }
+        if (overflow) {
+            evict(entry);
+        } else if (schedule) {
+            sseExecutor.execute(() -> drain(entry));
+        }
+    }
+
+    /**
+     * Sends queued events for one emitter, writing everything that is queued (up to a
+     * batch) in a single send so a coalesced burst costs one flush per client. Yields
+     * the thread after each batch so a busy emitter cannot starve the others.
+     */
+    private void drain(EmitterEntry entry) {
+        List<OutboundEvent> batch = new ArrayList<>();
+        synchronized (entry) {
+            while (!entry.closed && batch.size() < DRAIN_BATCH_SIZE && !entry.queue.isEmpty()) {
+                batch.add(entry.queue.poll());
+            }
+            if (batch.isEmpty()) {
+                entry.draining = false;
+                return;
+            }
+        }
+        if (!send(entry, batch)) {
+            synchronized (entry) {
+                entry.closed = true;
+                entry.queue.clear();
+                entry.draining = false;
+            }
+            return;
+        }
+        sseExecutor.execute(() -> drain(entry));
+    }
+
+    private void evict(EmitterEntry entry) {
+        evictions.incrementAndGet();
+        remove(entry);
+        log.info("SSE: evicted slow client user={} (queue over {} events)", entry.user.getId(), maxQueuedEvents);
+        // Completing the stream makes the EventSource reconnect with Last-Event-ID,
+        // which resyncs it from the replay buffer or a fresh snapshot. complete()
+        // waits for an in-flight send, so keep it off the broadcasting thread.
+        sseExecutor.execute(entry.emitter::complete);
+    }
+
+    private boolean send(EmitterEntry entry, List<OutboundEvent> events) {
+        Set<ResponseBodyEmitter.DataWithMediaType> frame = new LinkedHashSet<>();
+        for (OutboundEvent event : events) {
+            frame.addAll(SseEmitter.event()
+                    .id(event.id())
+                    .name(event.name())
+                    .data(event.payload(), MediaType.APPLICATION_JSON)
+                    .build());
+        }
+        try {
+            entry.emitter.send(frame);
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            log.debug("SSE: send failed for user={}, removing: {}", entry.user.getId(), e.getMessage());
+            entry.emitter.completeWithError(e);
+            remove(entry);
+            return false;
+        }
     }
 
     // -------------------------------------------------------------------------
     // Internal
     // -------------------------------------------------------------------------
 
-    private record EmitterEntry(AppUser user, SseEmitter emitter) {}
+    /** One connected client plus its outbound queue. Queue state is guarded by the entry itself. */
+    private static final class EmitterEntry {
+        private final AppUser user;
+        private final AccessScope scope;
+        private final SseEmitter emitter;
+        private final Deque<OutboundEvent> queue = new ArrayDeque<>();
+        /** True while a drain task for this entry is scheduled or running. */
+        private boolean draining;
+        /** Set once the entry is evicted or failed; no more events are accepted. */
+        private boolean closed;
+
+        private EmitterEntry(AppUser user, AccessScope scope, SseEmitter emitter) {
+            this.user = user;
+            this.scope = scope;
+            this.emitter = emitter;
+        }
+
+        private synchronized int queueDepth() {
+            return queue.size();
+        }
+    }
+
+    /** A fully encoded SSE event ready to be written to an emitter; the bytes are shared. */
+    private record OutboundEvent(String id, String name, byte[] payload) {}
 
-    private record PendingBroadcast(EmitterEntry entry, List<RequestDto> scoped) {}
+    /** A change that has been assigned an id, kept for replay. */
+    private record BufferedEvent(long sequence, RequestChangedEvent change, byte[] payload) {}
 }
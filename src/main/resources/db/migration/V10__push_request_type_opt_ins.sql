@@ -0,0 +1,5 @@
+create table app_user_push_request_types (
+    app_user_id bigint not null references app_users (id) on delete cascade,
+    request_type varchar(255) not null,
+    primary key (app_user_id, request_type)
+);
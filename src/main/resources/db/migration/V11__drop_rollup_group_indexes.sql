@@ -0,0 +1,4 @@
+-- Rollup and histogram reads now resolve a group to its hotels at query time and go
+-- through the per-hotel unique keys; the stored hotel_group_id is no longer filtered on.
+drop index idx_request_hourly_rollups_group_hour;
+drop index idx_request_latency_buckets_group;
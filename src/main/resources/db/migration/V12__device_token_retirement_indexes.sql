@@ -0,0 +1,4 @@
+-- Token sweep: stale active tokens by last_seen_at, long-inactive tokens by updated_at
+create index idx_device_tokens_active_last_seen on device_tokens (last_seen_at) where active;
+create index idx_device_tokens_inactive_updated on device_tokens (updated_at) where not active;
+drop index idx_device_tokens_last_seen;
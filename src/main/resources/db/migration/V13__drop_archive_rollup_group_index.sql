@@ -0,0 +1,3 @@
+-- Archive rollup reads resolve a group to its hotels at query time like the other rollups
+-- (see V11); the hotel_group_id stored at archive time is no longer filtered on.
+drop index idx_archived_request_rollups_group;
@@ -0,0 +1,81 @@
+-- Schema as previously generated by Hibernate (ddl-auto: update).
+-- Existing databases are baselined at this version and skip this script.
+
+create table hotel_groups (
+    id bigint generated by default as identity primary key,
+    name varchar(255),
+    code varchar(255)
+);
+
+create table hotels (
+    id bigint generated by default as identity primary key,
+    name varchar(255),
+    code varchar(255),
+    city varchar(255),
+    country varchar(255),
+    hotel_group_id bigint not null references hotel_groups (id)
+);
+
+create table rooms (
+    id bigint generated by default as identity primary key,
+    number varchar(255),
+    floor integer,
+    guest_access_token varchar(120) unique,
+    hotel_id bigint not null references hotels (id),
+    constraint uk_rooms_hotel_number unique (hotel_id, number)
+);
+
+create table app_users (
+    id bigint generated by default as identity primary key,
+    firebase_uid varchar(128) not null unique,
+    email varchar(320) not null unique,
+    name varchar(255) not null,
+    phone varchar(255),
+    status varchar(255) not null,
+    access_role varchar(255),
+    employee_role varchar(255),
+    active boolean not null,
+    requested_hotel_id bigint references hotels (id),
+    requested_hotel_group_id bigint references hotel_groups (id),
+    assigned_hotel_group_id bigint references hotel_groups (id),
+    assigned_hotel_id bigint references hotels (id),
+    created_at timestamp(6) not null,
+    updated_at timestamp(6) not null,
+    fcm_enabled boolean default true not null
+);
+
+create table guest_sessions (
+    id bigint generated by default as identity primary key,
+    session_token varchar(120) not null unique,
+    room_id bigint not null references rooms (id),
+    created_at timestamp(6),
+    last_seen_at timestamp(6)
+);
+
+create table requests (
+    id bigint generated by default as identity primary key,
+    version bigint,
+    hotel_id bigint not null references hotels (id),
+    room_id bigint not null references rooms (id),
+    type varchar(255),
+    message varchar(2000),
+    status varchar(255),
+    created_at timestamp(6),
+    accepted_at timestamp(6),
+    completed_at timestamp(6),
+    assignee_app_user_id bigint references app_users (id),
+    guest_session_id bigint references guest_sessions (id),
+    rating integer,
+    comments varchar(2000)
+);
+
+create table device_tokens (
+    id bigint generated by default as identity primary key,
+    app_user_id bigint not null references app_users (id),
+    fcm_token varchar(512) not null unique,
+    platform varchar(32) not null,
+    active boolean not null,
+    last_seen_at timestamp(6) not null,
+    created_at timestamp(6) not null,
+    updated_at timestamp(6) not null
+);
@@ -0,0 +1,26 @@
+-- Scoped request lists and reports: WHERE hotel_id = ? [AND status = ?] ORDER BY created_at
+create index idx_requests_hotel_status_created on requests (hotel_id, status, created_at);
+
+-- Unscoped keyset listing: ORDER BY created_at DESC NULLS LAST, id DESC
+create index idx_requests_created_id on requests (created_at desc nulls last, id desc);
+
+-- Request board load / consistency check: only NEW and ACCEPTED rows
+create index idx_requests_active_hotel on requests (hotel_id) where status in ('NEW', 'ACCEPTED');
+
+-- Guest bootstrap: findByGuestSessionIdOrderByCreatedAtDesc
+create index idx_requests_guest_session_created on requests (guest_session_id, created_at);
+
+create index idx_requests_assignee on requests (assignee_app_user_id);
+
+-- Push recipients: findByAssignedHotel[Group]IdAndStatusAndAccessRoleIn
+create index idx_app_users_hotel_status_role on app_users (assigned_hotel_id, status, access_role);
+create index idx_app_users_group_status_role on app_users (assigned_hotel_group_id, status, access_role);
+
+-- Pending approvals: status = 'PENDING_APPROVAL'
+create index idx_app_users_pending on app_users (requested_hotel_id, requested_hotel_group_id)
+    where status = 'PENDING_APPROVAL';
+
+-- findByAppUserIdAndActiveTrue
+create index idx_device_tokens_user_active on device_tokens (app_user_id) where active;
+
+create index idx_hotels_group on hotels (hotel_group_id);
@@ -0,0 +1,45 @@
+create table archived_requests (
+    id bigint primary key,
+    hotel_id bigint not null,
+    hotel_group_id bigint,
+    room_id bigint not null,
+    type varchar(255),
+    message varchar(2000),
+    status varchar(255),
+    created_at timestamp(6),
+    accepted_at timestamp(6),
+    completed_at timestamp(6),
+    assignee_app_user_id bigint,
+    guest_session_id bigint,
+    rating integer,
+    comments varchar(2000),
+    archived_at timestamp(6) not null
+);
+
+create index idx_archived_requests_hotel_created on archived_requests (hotel_id, created_at);
+
+create table archived_request_rollups (
+    id bigint generated by default as identity primary key,
+    hotel_id bigint not null,
+    hotel_group_id bigint,
+    room_id bigint not null,
+    type varchar(255),
+    status varchar(255),
+    created_day date,
+    request_count bigint not null,
+    accept_minutes_sum bigint not null,
+    accept_count bigint not null,
+    complete_minutes_sum bigint not null,
+    complete_count bigint not null
+);
+
+-- Upsert target. Rows with a null type or day never conflict and simply accumulate;
+-- readers always sum.
+create unique index uk_archived_request_rollups_key
+    on archived_request_rollups (hotel_id, room_id, type, status, created_day);
+
+create index idx_archived_request_rollups_group on archived_request_rollups (hotel_group_id);
+
+-- Archive job candidate scan
+create index idx_requests_closed_at on requests ((coalesce(completed_at, created_at)))
+    where status in ('COMPLETED', 'CANCELLED');
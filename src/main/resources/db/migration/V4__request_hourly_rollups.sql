@@ -0,0 +1,23 @@
+create table request_hourly_rollups (
+    id bigint generated by default as identity primary key,
+    hotel_id bigint not null,
+    hotel_group_id bigint,
+    bucket_hour timestamp(6) not null,
+    type varchar(255),
+    status varchar(255),
+    request_count bigint not null,
+    accept_minutes_sum bigint not null,
+    accept_count bigint not null,
+    complete_minutes_sum bigint not null,
+    complete_count bigint not null,
+    rating_sum bigint not null,
+    rating_count bigint not null
+);
+
+-- Upsert target. Rows with a null type or status never conflict and simply accumulate;
+-- readers always sum.
+create unique index uk_request_hourly_rollups_key
+    on request_hourly_rollups (hotel_id, bucket_hour, type, status);
+
+create index idx_request_hourly_rollups_group_hour on request_hourly_rollups (hotel_group_id, bucket_hour);
+create index idx_request_hourly_rollups_hour on request_hourly_rollups (bucket_hour);
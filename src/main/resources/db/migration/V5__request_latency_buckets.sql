@@ -0,0 +1,15 @@
+create table request_latency_buckets (
+    id bigint generated by default as identity primary key,
+    hotel_id bigint not null,
+    hotel_group_id bigint,
+    type varchar(255),
+    metric varchar(255) not null,
+    bucket integer not null,
+    sample_count bigint not null
+);
+
+-- Upsert target; see V4 for how null types accumulate.
+create unique index uk_request_latency_buckets_key
+    on request_latency_buckets (hotel_id, type, metric, bucket);
+
+create index idx_request_latency_buckets_group on request_latency_buckets (hotel_group_id);
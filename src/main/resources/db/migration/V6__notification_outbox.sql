@@ -0,0 +1,17 @@
+create table notification_outbox (
+    id bigint generated by default as identity primary key,
+    hotel_id bigint not null,
+    hotel_group_id bigint,
+    title varchar(255),
+    body varchar(1000),
+    data varchar(4000),
+    tokens text,
+    status varchar(255) not null,
+    attempts integer not null,
+    next_attempt_at timestamp(6) not null,
+    last_error varchar(1000),
+    created_at timestamp(6) not null
+);
+
+-- Dispatcher claim: status = 'PENDING' AND next_attempt_at <= now ORDER BY next_attempt_at
+create index idx_notification_outbox_due on notification_outbox (next_attempt_at) where status = 'PENDING';
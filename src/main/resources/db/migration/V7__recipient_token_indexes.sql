@@ -0,0 +1,7 @@
+-- Superadmin branch of findRecipientTokens: a handful of rows, no hotel to key on
+create index idx_app_users_active_superadmins on app_users (id)
+    where access_role = 'SUPERADMIN' and status = 'ACTIVE';
+
+-- Active tokens per user, covering fcm_token so recipient lookups never visit the heap
+create index idx_device_tokens_user_active_token on device_tokens (app_user_id) include (fcm_token) where active;
+drop index idx_device_tokens_user_active;
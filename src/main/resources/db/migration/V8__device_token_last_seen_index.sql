@@ -0,0 +1,2 @@
+-- Stale-token sweep: oldest tokens first, without scanning the table
+create index idx_device_tokens_last_seen on device_tokens (last_seen_at);
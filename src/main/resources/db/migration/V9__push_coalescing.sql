@@ -0,0 +1,7 @@
+alter table hotels add column push_coalesce_seconds integer;
+
+alter table notification_outbox add column coalesce_key varchar(64);
+
+-- Coalescing: the unsent rows of one hotel under one key
+create index idx_notification_outbox_coalesce on notification_outbox (hotel_id, coalesce_key)
+    where status = 'PENDING' and attempts = 0 and coalesce_key is not null;
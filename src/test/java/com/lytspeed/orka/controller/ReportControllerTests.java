@@ -0,0 +1,267 @@
+package com.lytspeed.orka.controller;
+
+import com.lytspeed.orka.config.OrkaReportProperties;
+import com.lytspeed.orka.entity.AppUser;
+import com.lytspeed.orka.entity.Hotel;
+import com.lytspeed.orka.entity.HotelGroup;
+import com.lytspeed.orka.entity.Request;
+import com.lytspeed.orka.entity.Room;
+import com.lytspeed.orka.entity.enums.AccessRole;
+import com.lytspeed.orka.entity.enums.AppUserStatus;
+import com.lytspeed.orka.entity.enums.RequestStatus;
+import com.lytspeed.orka.entity.enums.RequestType;
+import com.lytspeed.orka.repository.AppUserRepository;
+import com.lytspeed.orka.repository.RequestReportRepository;
+import com.lytspeed.orka.repository.RequestRepository;
+import com.lytspeed.orka.security.AccessScopeService;
+import com.lytspeed.orka.security.AuthenticatedAppUserService;
+import com.lytspeed.orka.service.ReportCache;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The SQL-aggregated overview must return exactly what the original in-memory
+ * implementation computed, for every scope.
+ */
+@DataJpaTest(properties = {
+		"spring.flyway.enabled=false",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@Import(RequestReportRepository.class)
+class ReportControllerTests {
+
+	@Autowired
+	private EntityManager entityManager;
+	@Autowired
+	private RequestRepository requestRepository;
+	@Autowired
+	private AppUserRepository appUserRepository;
+	@Autowired
+	private RequestReportRepository reportRepository;
+
+	private final AccessScopeService accessScopeService = new AccessScopeService();
+	private final List<AppUser> actors = new ArrayList<>();
+	private final ReportCache reportCache = new ReportCache(JsonMapper.builder().build(), new OrkaReportProperties());
+	private ReportController controller;
+	private AppUser staffBeta;
+
+	@BeforeEach
+	void setUp() {
+		HotelGroup north = persist(group("North"));
+		HotelGroup south = persist(group("South"));
+		Hotel alpha = persist(hotel("Alpha", north));
+		Hotel beta = persist(hotel("Beta", north));
+		Hotel gamma = persist(hotel("Gamma", south));
+
+		// Distinct per-room counts so the top-5 ordering has no ties.
+		Map<Room, Integer> requestsPerRoom = new LinkedHashMap<>();
+		requestsPerRoom.put(persist(room(alpha, "101", 1)), 7);
+		requestsPerRoom.put(persist(room(alpha, "102", 1)), 6);
+		requestsPerRoom.put(persist(room(alpha, "201", 2)), 5);
+		requestsPerRoom.put(persist(room(alpha, "202", 2)), 4);
+		requestsPerRoom.put(persist(room(beta, "101", 1)), 3);
+		requestsPerRoom.put(persist(room(beta, "102", 1)), 2);
+		requestsPerRoom.put(persist(room(gamma, "301", 3)), 8);
+		requestsPerRoom.put(persist(room(gamma, "302", 3)), 1);
+
+		LocalDateTime now = LocalDateTime.now();
+		int i = 0;
+		for (Map.Entry<Room, Integer> entry : requestsPerRoom.entrySet()) {
+			for (int n = 0; n < entry.getValue(); n++, i++) {
+				Request request = new Request();
+				request.setHotel(entry.getKey().getHotel());
+				request.setRoom(entry.getKey());
+				request.setType(RequestType.values()[i % RequestType.values().length]);
+				request.setStatus(RequestStatus.values()[i % RequestStatus.values().length]);
+				LocalDateTime createdAt = i % 11 == 0 ? null : now.minusDays(i % 9).minusMinutes(i);
+				request.setCreatedAt(createdAt);
+				if (createdAt != null && i % 3 != 0) {
+					request.setAcceptedAt(createdAt.plusSeconds(37L * i + 5));
+					if (i % 2 == 0) {
+						request.setCompletedAt(request.getAcceptedAt().plusSeconds(101L * i + 59));
+					}
+				}
+				persist(request);
+			}
+		}
+
+		actors.add(persist(user("super", AccessRole.SUPERADMIN, null, null)));
+		actors.add(persist(user("group-north", AccessRole.HOTEL_GROUP_ADMIN, north, null)));
+		actors.add(persist(user("hotel-gamma", AccessRole.HOTEL_ADMIN, null, gamma)));
+		actors.add(persist(user("staff-beta", AccessRole.STAFF, null, beta)));
+		actors.add(persist(user("no-role", null, null, null)));
+		entityManager.flush();
+		entityManager.clear();
+
+		staffBeta = actors.get(3);
+		controller = new ReportController(
+				reportRepository,
+				null,
+				reportCache,
+				accessScopeService,
+				new AuthenticatedAppUserService(appUserRepository)
+		);
+	}
+
+	@AfterEach
+	void clearAuthentication() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void overviewMatchesInMemoryImplementation() {
+		for (AppUser actor : actors) {
+			SecurityContextHolder.getContext().setAuthentication(
+					new UsernamePasswordAuthenticationToken(actor.getFirebaseUid(), null, List.of()));
+			List<Request> scoped = accessScopeService.filterRequests(actor, requestRepository.findAll());
+
+			assertThat(controller.overview().getBody()).as(actor.getName()).isEqualTo(inMemoryOverview(scoped));
+		}
+	}
+
+	@Test
+	void overviewIsServedFromCacheUntilAHotelInScopeChanges() {
+		SecurityContextHolder.getContext().setAuthentication(
+				new UsernamePasswordAuthenticationToken(staffBeta.getFirebaseUid(), null, List.of()));
+		ResponseEntity<Map<String, Object>> first = controller.overview();
+		assertThat(first.getHeaders().getETag()).isNotBlank();
+
+		Hotel beta = staffBeta.getAssignedHotel();
+		Request request = new Request();
+		request.setHotel(beta);
+		request.setRoom(entityManager.createQuery("select r from Room r where r.hotel = :hotel", Room.class)
+				.setParameter("hotel", beta).setMaxResults(1).getSingleResult());
+		request.setStatus(RequestStatus.NEW);
+		request.setCreatedAt(LocalDateTime.now());
+		persist(request);
+		entityManager.flush();
+
+		ResponseEntity<Map<String, Object>> cached = controller.overview();
+		assertThat(cached.getHeaders().getETag()).isEqualTo(first.getHeaders().getETag());
+		assertThat(cached.getBody()).isSameAs(first.getBody());
+
+		reportCache.invalidate(beta.getId(), beta.getHotelGroup().getId());
+		ResponseEntity<Map<String, Object>> refreshed = controller.overview();
+		assertThat(refreshed.getHeaders().getETag()).isNotEqualTo(first.getHeaders().getETag());
+		assertThat(refreshed.getBody()).containsEntry("totalRequests", (Long) first.getBody().get("totalRequests") + 1);
+	}
+
+	/** The overview as ReportController computed it before aggregation moved into SQL. */
+	private static Map<String, Object> inMemoryOverview(List<Request> scoped) {
+		Map<String, Long> byStatus = new LinkedHashMap<>();
+		for (RequestStatus s : RequestStatus.values()) {
+			byStatus.put(s.name(), scoped.stream().filter(r -> r.getStatus() == s).count());
+		}
+		Map<String, Long> byType = new LinkedHashMap<>();
+		for (RequestType t : RequestType.values()) {
+			byType.put(t.name(), scoped.stream().filter(r -> r.getType() == t).count());
+		}
+		OptionalDouble avgAccept = scoped.stream()
+				.filter(r -> r.getCreatedAt() != null && r.getAcceptedAt() != null)
+				.mapToLong(r -> java.time.Duration.between(r.getCreatedAt(), r.getAcceptedAt()).toMinutes())
+				.average();
+		OptionalDouble avgComplete = scoped.stream()
+				.filter(r -> r.getAcceptedAt() != null && r.getCompletedAt() != null)
+				.mapToLong(r -> java.time.Duration.between(r.getAcceptedAt(), r.getCompletedAt()).toMinutes())
+				.average();
+		List<Map<String, Object>> topRooms = scoped.stream()
+				.filter(r -> r.getRoom() != null)
+				.collect(Collectors.groupingBy(r -> r.getRoom().getId(), Collectors.counting()))
+				.entrySet().stream()
+				.sorted(Map.Entry.<Long, Long>comparingByValue().reversed())
+				.limit(5)
+				.map(e -> {
+					Request sample = scoped.stream()
+							.filter(r -> r.getRoom() != null && r.getRoom().getId().equals(e.getKey()))
+							.findFirst().orElseThrow();
+					Map<String, Object> m = new LinkedHashMap<>();
+					m.put("roomNumber", sample.getRoom().getNumber());
+					m.put("floor", sample.getRoom().getFloor());
+					m.put("count", e.getValue());
+					return m;
+				})
+				.collect(Collectors.toList());
+		LocalDate today = LocalDate.now();
+		List<Map<String, Object>> perDay = new ArrayList<>();
+		for (int i = 6; i >= 0; i--) {
+			LocalDate day = today.minusDays(i);
+			LocalDateTime start = day.atStartOfDay();
+			LocalDateTime end = day.plusDays(1).atStartOfDay();
+			long count = scoped.stream()
+					.filter(r -> r.getCreatedAt() != null
+							&& !r.getCreatedAt().isBefore(start)
+							&& r.getCreatedAt().isBefore(end))
+					.count();
+			Map<String, Object> entry = new LinkedHashMap<>();
+			entry.put("date", day.format(DateTimeFormatter.ISO_LOCAL_DATE));
+			entry.put("count", count);
+			perDay.add(entry);
+		}
+
+		Map<String, Object> result = new LinkedHashMap<>();
+		result.put("totalRequests", (long) scoped.size());
+		result.put("byStatus", byStatus);
+		result.put("byType", byType);
+		result.put("avgAcceptMinutes", avgAccept.isPresent() ? Math.round(avgAccept.getAsDouble()) : null);
+		result.put("avgCompleteMinutes", avgComplete.isPresent() ? Math.round(avgComplete.getAsDouble()) : null);
+		result.put("topRooms", topRooms);
+		result.put("requestsPerDay", perDay);
+		return result;
+	}
+
+	private <T> T persist(T entity) {
+		entityManager.persist(entity);
+		return entity;
+	}
+
+	private static HotelGroup group(String name) {
+		HotelGroup group = new HotelGroup();
+		group.setName(name);
+		return group;
+	}
+
+	private static Hotel hotel(String name, HotelGroup group) {
+		Hotel hotel = new Hotel();
+		hotel.setName(name);
+		hotel.setHotelGroup(group);
+		return hotel;
+	}
+
+	private static Room room(Hotel hotel, String number, int floor) {
+		Room room = new Room();
+		room.setHotel(hotel);
+		room.setNumber(number);
+		room.setFloor(floor);
+		return room;
+	}
+
+	private static AppUser user(String name, AccessRole role, HotelGroup group, Hotel hotel) {
+		AppUser user = new AppUser();
+		user.setFirebaseUid(name);
+		user.setEmail(name + "@orka.test");
+		user.setName(name);
+		user.setAccessRole(role);
+		user.setStatus(AppUserStatus.ACTIVE);
+		user.setAssignedHotelGroup(group);
+		user.setAssignedHotel(hotel);
+		return user;
+	}
+}
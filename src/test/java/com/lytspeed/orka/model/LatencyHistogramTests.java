@@ -0,0 +1,40 @@
+package com.lytspeed.orka.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LatencyHistogramTests {
+
+	@Test
+	void bucketsAreExactBelowEightAndWithinAnEighthAbove() {
+		for (long minutes = 0; minutes < 100_000; minutes++) {
+			int bucket = LatencyHistogram.bucketOf(minutes);
+			long highest = LatencyHistogram.highestValueOf(bucket);
+			assertThat(highest).isGreaterThanOrEqualTo(minutes);
+			assertThat(highest - minutes).isLessThanOrEqualTo(minutes / 8);
+			assertThat(LatencyHistogram.bucketOf(highest)).isEqualTo(bucket);
+			assertThat(LatencyHistogram.bucketOf(highest + 1)).isEqualTo(bucket + 1);
+		}
+		assertThat(LatencyHistogram.bucketOf(-5)).isZero();
+	}
+
+	@Test
+	void percentilesSurviveMerging() {
+		LatencyHistogram first = new LatencyHistogram();
+		LatencyHistogram second = new LatencyHistogram();
+		for (int minutes = 1; minutes <= 100; minutes++) {
+			(minutes % 2 == 0 ? first : second).record(minutes);
+		}
+
+		LatencyHistogram merged = new LatencyHistogram();
+		merged.merge(first);
+		merged.merge(second);
+
+		assertThat(merged.getTotalCount()).isEqualTo(100);
+		assertThat(merged.percentile(50)).isBetween(50L, 55L);
+		assertThat(merged.percentile(90)).isBetween(90L, 95L);
+		assertThat(merged.percentile(99)).isBetween(99L, 103L);
+		assertThat(new LatencyHistogram().percentile(50)).isNull();
+	}
+}
@@ -0,0 +1,181 @@
+package com.lytspeed.orka.repository;
+
+import com.lytspeed.orka.entity.AppUser;
+import com.lytspeed.orka.entity.DeviceToken;
+import com.lytspeed.orka.entity.Hotel;
+import com.lytspeed.orka.entity.HotelGroup;
+import com.lytspeed.orka.entity.enums.AccessRole;
+import com.lytspeed.orka.entity.enums.AppUserStatus;
+import com.lytspeed.orka.entity.enums.EmployeeRole;
+import com.lytspeed.orka.entity.enums.RequestType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+		"spring.flyway.enabled=false",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+class DeviceTokenRepositoryTests {
+
+	private static final List<AccessRole> HOTEL_ROLES = List.of(AccessRole.HOTEL_ADMIN, AccessRole.STAFF, AccessRole.ADMIN);
+	private static final List<AccessRole> GROUP_ROLES = List.of(AccessRole.HOTEL_GROUP_ADMIN);
+	private static final List<AccessRole> GLOBAL_ROLES = List.of(AccessRole.SUPERADMIN);
+
+	@Autowired
+	private HotelGroupRepository hotelGroupRepository;
+	@Autowired
+	private HotelRepository hotelRepository;
+	@Autowired
+	private AppUserRepository appUserRepository;
+	@Autowired
+	private DeviceTokenRepository deviceTokenRepository;
+
+	private HotelGroup north;
+	private Hotel alpha;
+	private Hotel gamma;
+
+	@BeforeEach
+	void setUp() {
+		north = hotelGroupRepository.save(group("North"));
+		HotelGroup south = hotelGroupRepository.save(group("South"));
+		alpha = hotelRepository.save(hotel("Alpha", north));
+		Hotel beta = hotelRepository.save(hotel("Beta", north));
+		gamma = hotelRepository.save(hotel("Gamma", south));
+
+		token(user("super", AccessRole.SUPERADMIN, AppUserStatus.ACTIVE, null, null, true), "super-1", true);
+		AppUser groupNorth = user("group-north", AccessRole.HOTEL_GROUP_ADMIN, AppUserStatus.ACTIVE, north, null, true);
+		groupNorth.getPushRequestTypes().add(RequestType.FOOD);
+		token(appUserRepository.save(groupNorth), "north-1", true);
+		token(user("group-south", AccessRole.HOTEL_GROUP_ADMIN, AppUserStatus.ACTIVE, south, null, true), "south-1", true);
+		AppUser staffAlpha = user("staff-alpha", AccessRole.STAFF, AppUserStatus.ACTIVE, null, alpha, true);
+		staffAlpha.setEmployeeRole(EmployeeRole.HOUSEKEEPING);
+		staffAlpha = appUserRepository.save(staffAlpha);
+		token(staffAlpha, "alpha-1", true);
+		token(staffAlpha, "alpha-2", true);
+		token(staffAlpha, "alpha-old", false);
+		AppUser cookAlpha = user("cook-alpha", AccessRole.STAFF, AppUserStatus.ACTIVE, null, alpha, true);
+		cookAlpha.setEmployeeRole(EmployeeRole.ROOM_SERVICE);
+		token(appUserRepository.save(cookAlpha), "alpha-cook", true);
+		AppUser deskAlpha = user("desk-alpha", AccessRole.STAFF, AppUserStatus.ACTIVE, null, alpha, true);
+		deskAlpha.setEmployeeRole(EmployeeRole.FRONT_DESK);
+		token(appUserRepository.save(deskAlpha), "alpha-desk", true);
+		token(user("admin-alpha", AccessRole.HOTEL_ADMIN, AppUserStatus.ACTIVE, null, alpha, true), "alpha-admin", true);
+		token(user("muted-alpha", AccessRole.STAFF, AppUserStatus.ACTIVE, null, alpha, false), "alpha-muted", true);
+		token(user("disabled-alpha", AccessRole.STAFF, AppUserStatus.DISABLED, null, alpha, true), "alpha-disabled", true);
+		token(user("staff-beta", AccessRole.STAFF, AppUserStatus.ACTIVE, null, beta, true), "beta-1", true);
+		token(user("staff-gamma", AccessRole.STAFF, AppUserStatus.ACTIVE, null, gamma, true), "gamma-1", true);
+	}
+
+	@Test
+	void hotelRecipientsIncludeHotelStaffGroupAdminsAndSuperadmins() {
+		List<String> tokens = deviceTokenRepository.findRecipientTokens(
+				alpha.getId(), north.getId(), AppUserStatus.ACTIVE, HOTEL_ROLES, List.of(), GROUP_ROLES, GLOBAL_ROLES);
+
+		assertThat(tokens).containsExactlyInAnyOrder(
+				"super-1", "north-1", "alpha-1", "alpha-2", "alpha-cook", "alpha-desk", "alpha-admin");
+	}
+
+	@Test
+	void hotelWithoutGroupOnlyReachesHotelStaffAndSuperadmins() {
+		List<String> tokens = deviceTokenRepository.findRecipientTokens(
+				gamma.getId(), null, AppUserStatus.ACTIVE, HOTEL_ROLES, List.of(), GROUP_ROLES, GLOBAL_ROLES);
+
+		assertThat(tokens).containsExactlyInAnyOrder("super-1", "gamma-1");
+	}
+
+	@Test
+	void bulkDeactivationSkipsUnknownAndAlreadyInactiveTokens() {
+		int deactivated = deviceTokenRepository.deactivateByFcmTokenIn(
+				List.of("alpha-1", "alpha-old", "never-registered"), LocalDateTime.now());
+
+		assertThat(deactivated).isEqualTo(1);
+		assertThat(deviceTokenRepository.findRecipientTokens(
+				alpha.getId(), north.getId(), AppUserStatus.ACTIVE, HOTEL_ROLES, List.of(), GROUP_ROLES, GLOBAL_ROLES))
+				.containsExactlyInAnyOrder("super-1", "north-1", "alpha-2", "alpha-cook", "alpha-desk", "alpha-admin");
+	}
+
+	@Test
+	void sweepDeactivatesStaleTokensBeforeDeletingLongInactiveOnes() {
+		deviceTokenRepository.flush();
+		LocalDateTime later = LocalDateTime.now().plusDays(1);
+
+		assertThat(deviceTokenRepository.deactivateStale(later, later, 100)).isEqualTo(12);
+		assertThat(deviceTokenRepository.deleteInactive(LocalDateTime.now().plusHours(1), 100)).isEqualTo(1);
+		assertThat(deviceTokenRepository.findByFcmToken("alpha-old")).isEmpty();
+		assertThat(deviceTokenRepository.findByFcmToken("alpha-1")).isPresent();
+	}
+
+	@Test
+	void fallbackRecipientsAreAdminsAndFallbackStaff() {
+		List<String> tokens = deviceTokenRepository.findRecipientTokens(
+				alpha.getId(), north.getId(), AppUserStatus.ACTIVE,
+				List.of(AccessRole.HOTEL_ADMIN, AccessRole.ADMIN), List.of(EmployeeRole.FRONT_DESK), GROUP_ROLES, GLOBAL_ROLES);
+
+		assertThat(tokens).containsExactlyInAnyOrder("super-1", "north-1", "alpha-desk", "alpha-admin");
+	}
+
+	@Test
+	void staffRecipientsMatchTheRoutedEmployeeRoles() {
+		assertThat(deviceTokenRepository.findStaffTokens(alpha.getId(), AppUserStatus.ACTIVE, List.of(EmployeeRole.HOUSEKEEPING)))
+				.containsExactlyInAnyOrder("alpha-1", "alpha-2");
+		assertThat(deviceTokenRepository.findStaffTokens(alpha.getId(), AppUserStatus.ACTIVE, List.of(EmployeeRole.ROOM_SERVICE)))
+				.containsExactly("alpha-cook");
+		assertThat(deviceTokenRepository.findStaffTokens(gamma.getId(), AppUserStatus.ACTIVE, List.of(EmployeeRole.ROOM_SERVICE)))
+				.isEmpty();
+	}
+
+	@Test
+	void optInRecipientsAreLimitedToTheRequestScope() {
+		assertThat(deviceTokenRepository.findOptInTokens(alpha.getId(), north.getId(), AppUserStatus.ACTIVE,
+				RequestType.FOOD, GROUP_ROLES, GLOBAL_ROLES))
+				.containsExactly("north-1");
+		assertThat(deviceTokenRepository.findOptInTokens(gamma.getId(), null, AppUserStatus.ACTIVE,
+				RequestType.FOOD, GROUP_ROLES, GLOBAL_ROLES))
+				.isEmpty();
+	}
+
+	private static HotelGroup group(String name) {
+		HotelGroup group = new HotelGroup();
+		group.setName(name);
+		group.setCode(name.toUpperCase());
+		return group;
+	}
+
+	private static Hotel hotel(String name, HotelGroup group) {
+		Hotel hotel = new Hotel();
+		hotel.setName(name);
+		hotel.setCode(name.toUpperCase());
+		hotel.setHotelGroup(group);
+		return hotel;
+	}
+
+	private AppUser user(String name, AccessRole role, AppUserStatus status, HotelGroup group, Hotel hotel, boolean fcmEnabled) {
+		AppUser user = new AppUser();
+		user.setFirebaseUid(name);
+		user.setEmail(name + "@orka.test");
+		user.setName(name);
+		user.setAccessRole(role);
+		user.setStatus(status);
+		user.setAssignedHotelGroup(group);
+		user.setAssignedHotel(hotel);
+		user.setFcmEnabled(fcmEnabled);
+		return appUserRepository.save(user);
+	}
+
+	private void token(AppUser user, String fcmToken, boolean active) {
+		DeviceToken token = new DeviceToken();
+		token.setAppUser(user);
+		token.setFcmToken(fcmToken);
+		token.setPlatform("ANDROID");
+		token.setActive(active);
+		deviceTokenRepository.save(token);
+	}
+}
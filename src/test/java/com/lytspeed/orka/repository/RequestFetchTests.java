@@ -0,0 +1,134 @@
+package com.lytspeed.orka.repository;
+
+import com.lytspeed.orka.dto.RequestDto;
+import com.lytspeed.orka.dto.RequestDtoMapper;
+import com.lytspeed.orka.dto.RequestRow;
+import com.lytspeed.orka.dto.RequestSearchRequest;
+import com.lytspeed.orka.entity.AppUser;
+import com.lytspeed.orka.entity.GuestSession;
+import com.lytspeed.orka.entity.Hotel;
+import com.lytspeed.orka.entity.HotelGroup;
+import com.lytspeed.orka.entity.Request;
+import com.lytspeed.orka.entity.Room;
+import com.lytspeed.orka.entity.enums.AccessRole;
+import com.lytspeed.orka.entity.enums.AppUserStatus;
+import com.lytspeed.orka.entity.enums.RequestStatus;
+import com.lytspeed.orka.entity.enums.RequestType;
+import com.lytspeed.orka.security.AccessScope;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The request list projection must load its rows, and everything RequestDto shows, in one
+ * statement without hydrating any entity, and map them exactly as the entity path does.
+ */
+@DataJpaTest(properties = {
+		"spring.flyway.enabled=false",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class RequestFetchTests {
+
+	private static final int REQUESTS = 40;
+
+	@Autowired
+	private EntityManager entityManager;
+	@Autowired
+	private RequestRepository requestRepository;
+
+	private Statistics statistics;
+	private GuestSession sharedSession;
+
+	@BeforeEach
+	void setUp() {
+		List<Hotel> hotels = new ArrayList<>();
+		List<Room> rooms = new ArrayList<>();
+		List<AppUser> assignees = new ArrayList<>();
+		for (int g = 0; g < 2; g++) {
+			HotelGroup group = new HotelGroup();
+			group.setName("Group " + g);
+			entityManager.persist(group);
+			for (int h = 0; h < 2; h++) {
+				Hotel hotel = new Hotel();
+				hotel.setName("Hotel " + g + "-" + h);
+				hotel.setHotelGroup(group);
+				entityManager.persist(hotel);
+				hotels.add(hotel);
+				for (int r = 0; r < 3; r++) {
+					Room room = new Room();
+					room.setHotel(hotel);
+					room.setNumber(String.valueOf(100 + r));
+					entityManager.persist(room);
+					rooms.add(room);
+				}
+				for (int u = 0; u < 3; u++) {
+					AppUser user = new AppUser();
+					user.setFirebaseUid("uid-" + g + h + u);
+					user.setEmail("staff-" + g + h + u + "@orka.test");
+					user.setName("Staff " + g + h + u);
+					user.setAccessRole(AccessRole.STAFF);
+					user.setStatus(AppUserStatus.ACTIVE);
+					user.setAssignedHotel(hotel);
+					entityManager.persist(user);
+					assignees.add(user);
+				}
+			}
+		}
+
+		for (int i = 0; i < REQUESTS; i++) {
+			Room room = rooms.get(i % rooms.size());
+			GuestSession session = new GuestSession();
+			session.setRoom(room);
+			session.setSessionToken("session-" + i);
+			session.setCreatedAt(LocalDateTime.now());
+			entityManager.persist(session);
+			if (sharedSession == null) {
+				sharedSession = session;
+			}
+
+			Request request = new Request();
+			request.setHotel(room.getHotel());
+			request.setRoom(room);
+			request.setAssignee(assignees.get(i % assignees.size()));
+			request.setGuestSession(i % 4 == 0 ? sharedSession : session);
+			request.setType(RequestType.FOOD);
+			request.setStatus(i % 2 == 0 ? RequestStatus.NEW : RequestStatus.ACCEPTED);
+			request.setCreatedAt(LocalDateTime.now().minusMinutes(i));
+			entityManager.persist(request);
+		}
+		entityManager.flush();
+		entityManager.clear();
+
+		statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@Test
+	void projectionReadsOneStatementAndMatchesEntityMapping() {
+		List<RequestDto> rows = requestRepository.findRows(
+				RequestSpecifications.search(AccessScope.ALL, new RequestSearchRequest(), null),
+				RequestSpecifications.KEYSET_ORDER
+		).stream().map(RequestRow::toDto).toList();
+
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+		assertThat(statistics.getEntityLoadCount()).isZero();
+
+		List<RequestDto> expected = requestRepository.findAll(ScopeSpecifications.requests(AccessScope.ALL),
+						RequestSpecifications.KEYSET_ORDER).stream()
+				.map(RequestDtoMapper::toDto)
+				.toList();
+		assertThat(rows).usingRecursiveFieldByFieldElementComparator().isEqualTo(expected);
+	}
+}
@@ -0,0 +1,190 @@
+package com.lytspeed.orka.repository;
+
+import com.lytspeed.orka.entity.AppUser;
+import com.lytspeed.orka.entity.Hotel;
+import com.lytspeed.orka.entity.HotelGroup;
+import com.lytspeed.orka.entity.Request;
+import com.lytspeed.orka.entity.Room;
+import com.lytspeed.orka.entity.enums.AccessRole;
+import com.lytspeed.orka.entity.enums.AppUserStatus;
+import com.lytspeed.orka.entity.enums.RequestStatus;
+import com.lytspeed.orka.entity.enums.RequestType;
+import com.lytspeed.orka.security.AccessScopeService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The SQL-scoped reads must return exactly the rows the in-memory filters in
+ * {@link AccessScopeService} keep, for every kind of actor.
+ */
+@DataJpaTest(properties = {
+		"spring.flyway.enabled=false",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+class ScopeSpecificationsTests {
+
+	@Autowired
+	private HotelGroupRepository hotelGroupRepository;
+	@Autowired
+	private HotelRepository hotelRepository;
+	@Autowired
+	private RoomRepository roomRepository;
+	@Autowired
+	private RequestRepository requestRepository;
+	@Autowired
+	private AppUserRepository appUserRepository;
+
+	private final AccessScopeService accessScopeService = new AccessScopeService();
+	private final List<AppUser> actors = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		HotelGroup north = group("North");
+		HotelGroup south = group("South");
+		Hotel alpha = hotel("Alpha", north);
+		Hotel beta = hotel("Beta", north);
+		Hotel gamma = hotel("Gamma", south);
+		for (Hotel hotel : List.of(alpha, beta, gamma)) {
+			for (int i = 1; i <= 2; i++) {
+				Room room = room(hotel, String.valueOf(100 + i));
+				request(hotel, room);
+			}
+		}
+
+		actors.add(user("super", AccessRole.SUPERADMIN, AppUserStatus.ACTIVE, null, null));
+		actors.add(user("group-north", AccessRole.HOTEL_GROUP_ADMIN, AppUserStatus.ACTIVE, north, null));
+		actors.add(user("legacy-admin", AccessRole.ADMIN, AppUserStatus.ACTIVE, south, null));
+		actors.add(user("group-unassigned", AccessRole.HOTEL_GROUP_ADMIN, AppUserStatus.ACTIVE, null, null));
+		actors.add(user("hotel-alpha", AccessRole.HOTEL_ADMIN, AppUserStatus.ACTIVE, null, alpha));
+		actors.add(user("staff-beta", AccessRole.STAFF, AppUserStatus.ACTIVE, null, beta));
+		actors.add(user("staff-gamma", AccessRole.STAFF, AppUserStatus.ACTIVE, null, gamma));
+		actors.add(user("no-role", null, AppUserStatus.ACTIVE, null, null));
+
+		AppUser pendingGroup = user("pending-north", null, AppUserStatus.PENDING_APPROVAL, null, null);
+		pendingGroup.setRequestedHotelGroup(north);
+		appUserRepository.save(pendingGroup);
+		AppUser pendingHotel = user("pending-alpha", null, AppUserStatus.PENDING_APPROVAL, null, null);
+		pendingHotel.setRequestedHotel(alpha);
+		appUserRepository.save(pendingHotel);
+		AppUser pendingOther = user("pending-gamma", null, AppUserStatus.PENDING_APPROVAL, null, null);
+		pendingOther.setRequestedHotel(gamma);
+		appUserRepository.save(pendingOther);
+	}
+
+	@Test
+	void hotelsMatchInMemoryFilter() {
+		for (AppUser actor : actors) {
+			assertThat(ids(hotelRepository.findAll(ScopeSpecifications.hotels(accessScopeService.scopeOf(actor))), Hotel::getId))
+					.as(actor.getName())
+					.isEqualTo(ids(accessScopeService.filterHotels(actor, hotelRepository.findAll()), Hotel::getId));
+		}
+	}
+
+	@Test
+	void roomsMatchInMemoryFilter() {
+		for (AppUser actor : actors) {
+			assertThat(ids(roomRepository.findAll(ScopeSpecifications.rooms(accessScopeService.scopeOf(actor))), Room::getId))
+					.as(actor.getName())
+					.isEqualTo(ids(accessScopeService.filterRooms(actor, roomRepository.findAll()), Room::getId));
+		}
+	}
+
+	@Test
+	void requestsMatchInMemoryFilter() {
+		for (AppUser actor : actors) {
+			assertThat(ids(requestRepository.findAll(ScopeSpecifications.requests(accessScopeService.scopeOf(actor))), Request::getId))
+					.as(actor.getName())
+					.isEqualTo(ids(accessScopeService.filterRequests(actor, requestRepository.findAll()), Request::getId));
+		}
+	}
+
+	@Test
+	void readableAppUsersMatchInMemoryFilter() {
+		for (AppUser actor : actors) {
+			List<AppUser> expected = appUserRepository.findAll().stream()
+					.filter(user -> accessScopeService.canReadAppUser(actor, user))
+					.toList();
+			assertThat(ids(appUserRepository.findAll(
+					ScopeSpecifications.appUsersReadableBy(actor, accessScopeService.scopeOf(actor))), AppUser::getId))
+					.as(actor.getName())
+					.isEqualTo(ids(expected, AppUser::getId));
+		}
+	}
+
+	@Test
+	void pendingAppUsersMatchInMemoryFilter() {
+		for (AppUser actor : actors) {
+			List<AppUser> expected = appUserRepository.findAll().stream()
+					.filter(user -> user.getStatus() == AppUserStatus.PENDING_APPROVAL)
+					.filter(user -> accessScopeService.canManagePendingUser(actor, user))
+					.toList();
+			assertThat(ids(appUserRepository.findAll(
+					ScopeSpecifications.pendingAppUsers(accessScopeService.pendingApprovalScopeOf(actor))), AppUser::getId))
+					.as(actor.getName())
+					.isEqualTo(ids(expected, AppUser::getId));
+		}
+	}
+
+	private static <T> Set<Long> ids(Collection<T> rows, Function<T, Long> id) {
+		return rows.stream().map(id).collect(Collectors.toSet());
+	}
+
+	private HotelGroup group(String name) {
+		HotelGroup group = new HotelGroup();
+		group.setName(name);
+		group.setCode(name.toUpperCase());
+		return hotelGroupRepository.save(group);
+	}
+
+	private Hotel hotel(String name, HotelGroup group) {
+		Hotel hotel = new Hotel();
+		hotel.setName(name);
+		hotel.setCode(name.toUpperCase());
+		hotel.setHotelGroup(group);
+		return hotelRepository.save(hotel);
+	}
+
+	private Room room(Hotel hotel, String number) {
+		Room room = new Room();
+		room.setHotel(hotel);
+		room.setNumber(number);
+		room.setFloor(1);
+		room.setGuestAccessToken(hotel.getCode() + "-" + number);
+		return roomRepository.save(room);
+	}
+
+	private void request(Hotel hotel, Room room) {
+		Request request = new Request();
+		request.setHotel(hotel);
+		request.setRoom(room);
+		request.setType(RequestType.HOUSEKEEPING);
+		request.setStatus(RequestStatus.NEW);
+		request.setCreatedAt(LocalDateTime.now());
+		requestRepository.save(request);
+	}
+
+	private AppUser user(String name, AccessRole role, AppUserStatus status, HotelGroup group, Hotel hotel) {
+		AppUser user = new AppUser();
+		user.setFirebaseUid(name);
+		user.setEmail(name + "@orka.test");
+		user.setName(name);
+		user.setAccessRole(role);
+		user.setStatus(status);
+		user.setAssignedHotelGroup(group);
+		user.setAssignedHotel(hotel);
+		return appUserRepository.save(user);
+	}
+}
@@ -0,0 +1,327 @@
+package com.lytspeed.orka.service;
+
+import com.lytspeed.orka.config.OrkaNotificationProperties;
+import com.lytspeed.orka.dto.RequestDto;
+import com.lytspeed.orka.dto.RoomSummaryDto;
+import com.lytspeed.orka.entity.Hotel;
+import com.lytspeed.orka.entity.HotelGroup;
+import com.lytspeed.orka.entity.NotificationOutbox;
+import com.lytspeed.orka.entity.enums.OutboxStatus;
+import com.lytspeed.orka.entity.enums.RequestStatus;
+import com.lytspeed.orka.entity.enums.RequestType;
+import com.lytspeed.orka.event.RequestChangedEvent;
+import com.lytspeed.orka.event.RequestChangedEventListener;
+import com.lytspeed.orka.repository.HotelGroupRepository;
+import com.lytspeed.orka.repository.HotelRepository;
+import com.lytspeed.orka.repository.NotificationOutboxRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.ObjectMapper;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest(properties = {
+		"spring.flyway.enabled=false",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"orka.notifications.max-attempts=2"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({NotificationOutboxService.class, RequestChangedEventListener.class, NotificationOutboxServiceTests.Config.class})
+class NotificationOutboxServiceTests {
+
+	private static final List<String> RECIPIENTS = List.of("token-a", "token-b");
+
+	@MockitoBean
+	private FcmNotificationService fcmNotificationService;
+	@MockitoBean
+	private RequestBoard requestBoard;
+	@MockitoBean
+	private RequestSseService requestSseService;
+	@MockitoBean
+	private ReportCache reportCache;
+
+	@Autowired
+	private NotificationOutboxService outboxService;
+	@Autowired
+	private NotificationOutboxRepository outboxRepository;
+	@Autowired
+	private HotelGroupRepository hotelGroupRepository;
+	@Autowired
+	private HotelRepository hotelRepository;
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+	@Autowired
+	private EntityManager entityManager;
+	@Autowired
+	private OrkaNotificationProperties properties;
+
+	private Hotel hotel;
+
+	@BeforeEach
+	void setUp() {
+		HotelGroup group = new HotelGroup();
+		group.setName("North");
+		group.setCode("NORTH");
+		group = hotelGroupRepository.save(group);
+		Hotel alpha = new Hotel();
+		alpha.setName("Alpha");
+		alpha.setCode("ALPHA");
+		alpha.setHotelGroup(group);
+		hotel = hotelRepository.save(alpha);
+
+		when(fcmNotificationService.isEnabled()).thenReturn(true);
+		when(fcmNotificationService.recipientTokens(any(), any(), any())).thenReturn(RECIPIENTS);
+		when(fcmNotificationService.sendMulticast(anyList(), anyString(), anyString(), anyMap())).thenReturn(List.of());
+	}
+
+	@AfterEach
+	void tearDown() {
+		outboxRepository.deleteAll();
+		hotelRepository.deleteAll();
+		hotelGroupRepository.deleteAll();
+	}
+
+	@Test
+	void pushIsQueuedOnlyWhenTheRequestCommits() {
+		transactionTemplate.executeWithoutResult(status -> eventPublisher.publishEvent(created(1, "101")));
+		transactionTemplate.executeWithoutResult(status -> {
+			eventPublisher.publishEvent(created(2, "102"));
+			status.setRollbackOnly();
+		});
+
+		assertThat(outboxRepository.findAll()).singleElement()
+				.extracting(NotificationOutbox::getBody).isEqualTo("Room 101 has a new request");
+	}
+
+	@Test
+	void deliveredRowsAreDeleted() {
+		enqueue(created(1, "101"));
+
+		outboxService.dispatch();
+
+		verify(fcmNotificationService).sendMulticast(
+				eq(RECIPIENTS), eq("New service request"), eq("Room 101 has a new request"), anyMap());
+		assertThat(outboxRepository.count()).isZero();
+	}
+
+	@Test
+	void transientFailuresBackOffAndAreParkedAfterMaxAttempts() {
+		when(fcmNotificationService.sendMulticast(anyList(), anyString(), anyString(), anyMap())).thenReturn(List.of("token-b"));
+		enqueue(created(1, "101"));
+
+		LocalDateTime before = LocalDateTime.now();
+		outboxService.dispatch();
+		NotificationOutbox retrying = outboxRepository.findAll().get(0);
+		assertThat(retrying.getStatus()).isEqualTo(OutboxStatus.PENDING);
+		assertThat(retrying.getAttempts()).isEqualTo(1);
+		assertThat(retrying.getTokens()).isEqualTo("token-b");
+		assertThat(retrying.getNextAttemptAt()).isAfter(before.plus(properties.getInitialBackoff().multipliedBy(3).dividedBy(4)));
+
+		outboxService.dispatch();
+		verify(fcmNotificationService, times(1)).sendMulticast(anyList(), anyString(), anyString(), anyMap());
+
+		makeDue(retrying.getId());
+		outboxService.dispatch();
+		NotificationOutbox failed = outboxRepository.findAll().get(0);
+		assertThat(failed.getStatus()).isEqualTo(OutboxStatus.FAILED);
+		assertThat(failed.getAttempts()).isEqualTo(2);
+		verify(fcmNotificationService).sendMulticast(eq(List.of("token-b")), anyString(), anyString(), anyMap());
+
+		makeDue(failed.getId());
+		outboxService.dispatch();
+		verify(fcmNotificationService, times(2)).sendMulticast(anyList(), anyString(), anyString(), anyMap());
+	}
+
+	@Test
+	void retriesAreTrackedPerPayload() {
+		when(fcmNotificationService.sendMulticast(anyList(), anyString(), eq("Room 101 has a new request"), anyMap()))
+				.thenReturn(List.of("token-a"));
+		enqueue(created(1, "101"));
+		enqueue(created(2, "102"));
+
+		outboxService.dispatch();
+
+		assertThat(outboxRepository.findAll()).singleElement().satisfies(row -> {
+			assertThat(row.getBody()).isEqualTo("Room 101 has a new request");
+			assertThat(row.getTokens()).isEqualTo("token-a");
+		});
+	}
+
+	@Test
+	void failedRowsArePurgedAfterTheRetention() {
+		Long oldFailed = insert(OutboxStatus.FAILED, properties.getFailedRetention().plusDays(1));
+		Long recentFailed = insert(OutboxStatus.FAILED, properties.getFailedRetention().minusDays(1));
+		Long oldPending = insert(OutboxStatus.PENDING, properties.getFailedRetention().plusDays(1));
+
+		outboxService.purgeFailed();
+
+		assertThat(outboxRepository.findAll()).extracting(NotificationOutbox::getId)
+				.containsExactlyInAnyOrder(recentFailed, oldPending)
+				.doesNotContain(oldFailed);
+	}
+
+	@Test
+	void claimedRowsAreSkippedByConcurrentDispatchers() {
+		enqueue(created(1, "101"));
+		enqueue(created(2, "102"));
+		List<Long> ids = outboxRepository.findAll().stream().map(NotificationOutbox::getId).sorted().toList();
+
+		List<Long> claimedElsewhere = transactionTemplate.execute(status -> {
+			entityManager.find(NotificationOutbox.class, ids.get(0), LockModeType.PESSIMISTIC_WRITE);
+			return CompletableFuture.supplyAsync(() -> transactionTemplate.execute(inner ->
+					outboxRepository.lockDueIds(LocalDateTime.now(), 10))).join();
+		});
+
+		assertThat(claimedElsewhere).containsExactly(ids.get(1));
+	}
+
+	@Test
+	void burstsWaitForQuietAndGoOutAsOneSummary() {
+		coalesceFor(60);
+		enqueue(created(1, "101"));
+		enqueue(created(2, "102"));
+		enqueue(created(3, "101"));
+
+		outboxService.dispatch();
+		verify(fcmNotificationService, never()).sendMulticast(anyList(), anyString(), anyString(), anyMap());
+
+		outboxRepository.findAll().forEach(row -> makeDue(row.getId()));
+		outboxService.dispatch();
+
+		verify(fcmNotificationService).sendMulticast(
+				eq(RECIPIENTS), eq("New service requests"), eq("3 new requests: rooms 101, 102"), anyMap());
+		assertThat(outboxRepository.count()).isZero();
+	}
+
+	@Test
+	void aBurstThatKeepsGrowingIsSentAtTheMaxDelay() {
+		coalesceFor(60);
+		enqueue(created(1, "101"));
+		enqueue(created(2, "102"));
+		List<NotificationOutbox> rows = outboxRepository.findAll();
+		Long first = rows.get(0).getId();
+		Long newest = rows.get(1).getId();
+
+		// The first request is due, but a newer one is still inside its window: the burst waits.
+		makeDue(first);
+		outboxService.dispatch();
+		verify(fcmNotificationService, never()).sendMulticast(anyList(), anyString(), anyString(), anyMap());
+		assertThat(outboxRepository.findById(first).orElseThrow().getNextAttemptAt())
+				.isEqualTo(outboxRepository.findById(newest).orElseThrow().getNextAttemptAt());
+
+		// Once the first request is older than coalesce-max-delay the burst goes out regardless.
+		transactionTemplate.executeWithoutResult(status -> entityManager
+				.createQuery("update NotificationOutbox o set o.createdAt = :createdAt, o.nextAttemptAt = :due where o.id = :id")
+				.setParameter("createdAt", LocalDateTime.now().minus(properties.getCoalesceMaxDelay()).minusSeconds(1))
+				.setParameter("due", LocalDateTime.now().minusSeconds(1))
+				.setParameter("id", first)
+				.executeUpdate());
+		outboxService.dispatch();
+
+		verify(fcmNotificationService).sendMulticast(
+				eq(RECIPIENTS), eq("New service requests"), eq("2 new requests: rooms 101, 102"), anyMap());
+		assertThat(outboxRepository.count()).isZero();
+	}
+
+	@Test
+	void summaryNamesTheRoomsOfABurst() {
+		assertThat(NotificationOutboxService.summaryBody(2, List.of("101")))
+				.isEqualTo("2 new requests: room 101");
+		assertThat(NotificationOutboxService.summaryBody(3, List.of("101", "204")))
+				.isEqualTo("3 new requests: rooms 101, 204");
+		assertThat(NotificationOutboxService.summaryBody(4, List.of()))
+				.isEqualTo("4 new requests");
+	}
+
+	@Test
+	void summaryTruncatesLongRoomLists() {
+		assertThat(NotificationOutboxService.summaryBody(7, List.of("101", "102", "103", "104", "105", "106")))
+				.isEqualTo("7 new requests: rooms 101, 102, 103, 104, 105, …");
+	}
+
+	private RequestChangedEvent created(long requestId, String roomNumber) {
+		RequestDto request = new RequestDto();
+		request.setId(requestId);
+		request.setVersion(0L);
+		request.setType(RequestType.FOOD);
+		request.setStatus(RequestStatus.NEW);
+		request.setRoom(new RoomSummaryDto(Long.valueOf(roomNumber), roomNumber, 1));
+		return new RequestChangedEvent(RequestChangedEvent.Type.CREATED, request, hotel.getId(),
+				hotel.getHotelGroup().getId(), null, null);
+	}
+
+	private void enqueue(RequestChangedEvent event) {
+		transactionTemplate.executeWithoutResult(status -> outboxService.enqueueNewRequest(event));
+	}
+
+	private void coalesceFor(int seconds) {
+		hotel.setPushCoalesceSeconds(seconds);
+		hotel = hotelRepository.save(hotel);
+	}
+
+	private void makeDue(Long id) {
+		transactionTemplate.executeWithoutResult(status -> entityManager
+				.createQuery("update NotificationOutbox o set o.nextAttemptAt = :due where o.id = :id")
+				.setParameter("due", LocalDateTime.now().minusSeconds(1))
+				.setParameter("id", id)
+				.executeUpdate());
+	}
+
+	private Long insert(OutboxStatus status, Duration age) {
+		NotificationOutbox row = new NotificationOutbox();
+		row.setHotelId(hotel.getId());
+		row.setTitle("New service request");
+		row.setStatus(status);
+		Long id = outboxRepository.save(row).getId();
+		transactionTemplate.executeWithoutResult(tx -> entityManager
+				.createQuery("update NotificationOutbox o set o.createdAt = :createdAt where o.id = :id")
+				.setParameter("createdAt", LocalDateTime.now().minus(age))
+				.setParameter("id", id)
+				.executeUpdate());
+		return id;
+	}
+
+	@TestConfiguration
+	static class Config {
+
+		@Bean
+		ObjectMapper objectMapper() {
+			return new ObjectMapper();
+		}
+
+		@Bean
+		OrkaNotificationProperties orkaNotificationProperties() {
+			return new OrkaNotificationProperties();
+		}
+	}
+}
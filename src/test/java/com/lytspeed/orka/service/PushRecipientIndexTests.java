@@ -0,0 +1,115 @@
+package com.lytspeed.orka.service;
+
+import com.lytspeed.orka.config.OrkaNotificationProperties;
+import com.lytspeed.orka.entity.AppUser;
+import com.lytspeed.orka.entity.DeviceToken;
+import com.lytspeed.orka.entity.Hotel;
+import com.lytspeed.orka.entity.HotelGroup;
+import com.lytspeed.orka.entity.enums.AccessRole;
+import com.lytspeed.orka.entity.enums.AppUserStatus;
+import com.lytspeed.orka.entity.enums.EmployeeRole;
+import com.lytspeed.orka.entity.enums.RequestType;
+import com.lytspeed.orka.repository.AppUserRepository;
+import com.lytspeed.orka.repository.DeviceTokenRepository;
+import com.lytspeed.orka.repository.HotelGroupRepository;
+import com.lytspeed.orka.repository.HotelRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+		"spring.flyway.enabled=false",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+class PushRecipientIndexTests {
+
+	@Autowired
+	private HotelGroupRepository hotelGroupRepository;
+	@Autowired
+	private HotelRepository hotelRepository;
+	@Autowired
+	private AppUserRepository appUserRepository;
+	@Autowired
+	private DeviceTokenRepository deviceTokenRepository;
+
+	private PushRecipientIndex index;
+	private HotelGroup north;
+	private Hotel alpha;
+
+	@BeforeEach
+	void setUp() {
+		OrkaNotificationProperties properties = new OrkaNotificationProperties();
+		properties.setRecipientCacheTtl(Duration.ZERO);
+		index = new PushRecipientIndex(deviceTokenRepository, properties);
+
+		HotelGroup group = new HotelGroup();
+		group.setName("North");
+		group.setCode("NORTH");
+		north = hotelGroupRepository.save(group);
+		Hotel hotel = new Hotel();
+		hotel.setName("Alpha");
+		hotel.setCode("ALPHA");
+		hotel.setHotelGroup(north);
+		alpha = hotelRepository.save(hotel);
+
+		token(user("super", AccessRole.SUPERADMIN, null, null, null), "super");
+		token(user("group", AccessRole.HOTEL_GROUP_ADMIN, null, north, null), "group");
+		token(user("admin", AccessRole.HOTEL_ADMIN, null, null, alpha), "admin");
+		token(user("desk", AccessRole.STAFF, EmployeeRole.FRONT_DESK, null, alpha), "desk");
+		token(user("housekeeper", AccessRole.STAFF, EmployeeRole.HOUSEKEEPING, null, alpha), "housekeeper");
+		// Routed to FOOD, but without a device.
+		user("cook", AccessRole.STAFF, EmployeeRole.ROOM_SERVICE, null, alpha);
+		AppUser fixer = user("fixer", AccessRole.STAFF, EmployeeRole.MAINTENANCE, null, alpha);
+		fixer.getPushRequestTypes().add(RequestType.FOOD);
+		token(appUserRepository.save(fixer), "fixer");
+	}
+
+	@Test
+	void routedStaffWithADeviceReplaceTheFallback() {
+		assertThat(index.tokensFor(alpha.getId(), north.getId(), RequestType.HOUSEKEEPING))
+				.containsExactly("housekeeper");
+		assertThat(index.tokensFor(alpha.getId(), north.getId(), RequestType.MAINTENANCE))
+				.containsExactly("fixer");
+	}
+
+	@Test
+	void optInsAloneDoNotSuppressTheFallback() {
+		assertThat(index.tokensFor(alpha.getId(), north.getId(), RequestType.FOOD))
+				.containsExactlyInAnyOrder("fixer", "super", "group", "admin", "desk");
+	}
+
+	@Test
+	void unroutedTypesGoToTheFallback() {
+		assertThat(index.tokensFor(alpha.getId(), north.getId(), RequestType.OTHER))
+				.containsExactlyInAnyOrder("super", "group", "admin", "desk");
+	}
+
+	private AppUser user(String name, AccessRole role, EmployeeRole employeeRole, HotelGroup group, Hotel hotel) {
+		AppUser user = new AppUser();
+		user.setFirebaseUid(name);
+		user.setEmail(name + "@orka.test");
+		user.setName(name);
+		user.setAccessRole(role);
+		user.setEmployeeRole(employeeRole);
+		user.setStatus(AppUserStatus.ACTIVE);
+		user.setAssignedHotelGroup(group);
+		user.setAssignedHotel(hotel);
+		user.setFcmEnabled(true);
+		return appUserRepository.save(user);
+	}
+
+	private void token(AppUser user, String fcmToken) {
+		DeviceToken token = new DeviceToken();
+		token.setAppUser(user);
+		token.setFcmToken(fcmToken);
+		token.setPlatform("ANDROID");
+		token.setActive(true);
+		deviceTokenRepository.save(token);
+	}
+}
@@ -0,0 +1,135 @@
+package com.lytspeed.orka.service;
+
+import com.lytspeed.orka.dto.RequestDto;
+import com.lytspeed.orka.dto.RequestRow;
+import com.lytspeed.orka.entity.enums.RequestStatus;
+import com.lytspeed.orka.event.RequestChangedEvent;
+import com.lytspeed.orka.repository.RequestRepository;
+import com.lytspeed.orka.security.AccessScope;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RequestBoardTests {
+
+	private static final long HOTEL_ID = 1L;
+	private static final long OTHER_HOTEL_ID = 2L;
+	private static final long GROUP_ID = 10L;
+
+	private final RequestRepository requestRepository = mock(RequestRepository.class);
+	private ThreadPoolTaskExecutor executor;
+	private RequestBoard board;
+
+	@BeforeEach
+	void setUp() {
+		executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(1);
+		executor.setMaxPoolSize(1);
+		executor.initialize();
+		board = new RequestBoard(requestRepository, executor);
+	}
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdown();
+	}
+
+	@Test
+	void snapshotIsFilteredByScope() {
+		board.apply(change(RequestChangedEvent.Type.CREATED, 1, 0, RequestStatus.NEW, HOTEL_ID, GROUP_ID));
+		board.apply(change(RequestChangedEvent.Type.CREATED, 2, 0, RequestStatus.ACCEPTED, OTHER_HOTEL_ID, null));
+
+		assertThat(ids(AccessScope.ALL)).containsExactly(1L, 2L);
+		assertThat(ids(AccessScope.hotelGroup(GROUP_ID))).containsExactly(1L);
+		assertThat(ids(AccessScope.hotel(HOTEL_ID))).containsExactly(1L);
+		assertThat(ids(AccessScope.hotel(OTHER_HOTEL_ID))).containsExactly(2L);
+		assertThat(ids(AccessScope.NONE)).isEmpty();
+	}
+
+	@Test
+	void staleChangesAreIgnored() {
+		board.apply(change(RequestChangedEvent.Type.CREATED, 1, 0, RequestStatus.NEW, HOTEL_ID, GROUP_ID));
+		board.apply(change(RequestChangedEvent.Type.UPDATED, 1, 2, RequestStatus.ACCEPTED, HOTEL_ID, GROUP_ID));
+		board.apply(change(RequestChangedEvent.Type.UPDATED, 1, 1, RequestStatus.NEW, HOTEL_ID, GROUP_ID));
+		board.apply(change(RequestChangedEvent.Type.UPDATED, 1, 1, RequestStatus.COMPLETED, HOTEL_ID, GROUP_ID));
+
+		List<RequestDto> snapshot = board.snapshot(AccessScope.ALL);
+		assertThat(snapshot).hasSize(1);
+		assertThat(snapshot.get(0).getVersion()).isEqualTo(2L);
+		assertThat(snapshot.get(0).getStatus()).isEqualTo(RequestStatus.ACCEPTED);
+	}
+
+	@Test
+	void closedAndMovedRequestsLeaveTheirOldScope() {
+		board.apply(change(RequestChangedEvent.Type.CREATED, 1, 0, RequestStatus.NEW, HOTEL_ID, GROUP_ID));
+		board.apply(change(RequestChangedEvent.Type.CREATED, 2, 0, RequestStatus.NEW, HOTEL_ID, GROUP_ID));
+
+		board.apply(change(RequestChangedEvent.Type.UPDATED, 1, 1, RequestStatus.COMPLETED, HOTEL_ID, GROUP_ID));
+		board.apply(change(RequestChangedEvent.Type.UPDATED, 2, 1, RequestStatus.NEW, OTHER_HOTEL_ID, null));
+
+		assertThat(ids(AccessScope.hotel(HOTEL_ID))).isEmpty();
+		assertThat(ids(AccessScope.hotelGroup(GROUP_ID))).isEmpty();
+		assertThat(ids(AccessScope.hotel(OTHER_HOTEL_ID))).containsExactly(2L);
+		assertThat(board.size()).isEqualTo(1);
+	}
+
+	@Test
+	void consistencyCheckReplacesADriftedBoard() {
+		board.apply(change(RequestChangedEvent.Type.CREATED, 1, 0, RequestStatus.NEW, HOTEL_ID, GROUP_ID));
+		when(requestRepository.findRows(any(), any())).thenReturn(List.of(row(2, 3, HOTEL_ID, GROUP_ID)));
+
+		board.checkConsistency();
+
+		assertThat(ids(AccessScope.hotelGroup(GROUP_ID))).containsExactly(2L);
+		assertThat(board.snapshot(AccessScope.ALL).get(0).getVersion()).isEqualTo(3L);
+	}
+
+	@Test
+	void consistencyCheckWaitsForPendingChanges() {
+		board.apply(change(RequestChangedEvent.Type.CREATED, 1, 0, RequestStatus.NEW, HOTEL_ID, GROUP_ID));
+		when(requestRepository.findRows(any(), any())).thenReturn(List.of(row(2, 0, HOTEL_ID, GROUP_ID)));
+		CountDownLatch release = new CountDownLatch(1);
+		executor.execute(() -> {
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		await().until(() -> executor.getActiveCount() == 1);
+
+		board.checkConsistency();
+		release.countDown();
+
+		assertThat(ids(AccessScope.ALL)).containsExactly(1L);
+	}
+
+	private List<Long> ids(AccessScope scope) {
+		return board.snapshot(scope).stream().map(RequestDto::getId).toList();
+	}
+
+	private static RequestChangedEvent change(
+			RequestChangedEvent.Type type, long id, long version, RequestStatus status, long hotelId, Long hotelGroupId
+	) {
+		RequestDto request = new RequestDto();
+		request.setId(id);
+		request.setVersion(version);
+		request.setStatus(status);
+		return new RequestChangedEvent(type, request, hotelId, hotelGroupId, null, null);
+	}
+
+	private static RequestRow row(long id, long version, long hotelId, Long hotelGroupId) {
+		return new RequestRow(id, version, hotelId, "Hotel", "H", null, null, hotelGroupId, 1L, "101", 1,
+				null, null, RequestStatus.NEW, null, null, null, null, null, null, null, null, null, null);
+	}
+}
@@ -0,0 +1,25 @@
+package com.lytspeed.orka.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestExportServiceTests {
+
+	@Test
+	void csvCellsAreQuotedOnlyWhenNeeded() {
+		assertThat(RequestExportService.csvCell(null)).isEmpty();
+		assertThat(RequestExportService.csvCell(42L)).isEqualTo("42");
+		assertThat(RequestExportService.csvCell("Extra towels")).isEqualTo("Extra towels");
+		assertThat(RequestExportService.csvCell("towels, please")).isEqualTo("\"towels, please\"");
+		assertThat(RequestExportService.csvCell("say \"hi\"")).isEqualTo("\"say \"\"hi\"\"\"");
+		assertThat(RequestExportService.csvCell("line\nbreak")).isEqualTo("\"line\nbreak\"");
+	}
+
+	@Test
+	void csvCellsThatLookLikeFormulasAreDefused() {
+		assertThat(RequestExportService.csvCell("=HYPERLINK(\"x\")")).isEqualTo("\"'=HYPERLINK(\"\"x\"\")\"");
+		assertThat(RequestExportService.csvCell("@SUM(A1)")).isEqualTo("'@SUM(A1)");
+		assertThat(RequestExportService.csvCell(-3)).isEqualTo("-3");
+	}
+}
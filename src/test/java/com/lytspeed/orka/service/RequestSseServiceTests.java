@@ -0,0 +1,313 @@
+package com.lytspeed.orka.service;
+
+import com.lytspeed.orka.config.OrkaSseProperties;
+import com.lytspeed.orka.dto.RequestDto;
+import com.lytspeed.orka.entity.AppUser;
+import com.lytspeed.orka.entity.Hotel;
+import com.lytspeed.orka.entity.HotelGroup;
+import com.lytspeed.orka.entity.enums.AccessRole;
+import com.lytspeed.orka.entity.enums.RequestStatus;
+import com.lytspeed.orka.event.RequestChangedEvent;
+import com.lytspeed.orka.security.AccessScopeService;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class RequestSseServiceTests {
+
+	private static final long HOTEL_ID = 1L;
+	private static final long OTHER_HOTEL_ID = 99L;
+	private static final long GROUP_ID = 10L;
+
+	private final List<FakeEmitter> emitters = new CopyOnWriteArrayList<>();
+	private final AtomicInteger snapshotLoads = new AtomicInteger();
+	private volatile CountDownLatch nextGate;
+
+	@Test
+	void snapshotIsSentBeforeDeltasWhichArriveInOrder() {
+		RequestSseService service = service(16, 16, Duration.ZERO);
+		FakeEmitter client = register(service, staff(HOTEL_ID), null);
+		for (long id = 1; id <= 5; id++) {
+			service.publish(created(id, HOTEL_ID));
+		}
+
+		await().untilAsserted(() -> assertThat(client.events()).hasSize(6));
+		List<Event> events = client.events();
+		assertThat(events.get(0).name()).isEqualTo(RequestSseService.SNAPSHOT_EVENT);
+		assertThat(events.subList(1, 6)).extracting(Event::name).containsOnly(RequestSseService.CREATED_EVENT);
+		assertThat(events).extracting(RequestSseServiceTests::sequence).isSorted().doesNotHaveDuplicates();
+		assertThat(events.subList(1, 6)).extracting(RequestSseServiceTests::requestKey)
+				.containsExactly(key(1, 0), key(2, 0), key(3, 0), key(4, 0), key(5, 0));
+	}
+
+	@Test
+	void deltasOnlyReachScopesThatCoverTheHotel() {
+		RequestSseService service = service(16, 16, Duration.ZERO);
+		FakeEmitter hotelStaff = register(service, staff(HOTEL_ID), null);
+		FakeEmitter groupAdmin = register(service, groupAdmin(GROUP_ID), null);
+		FakeEmitter otherStaff = register(service, staff(OTHER_HOTEL_ID), null);
+
+		service.publish(new RequestChangedEvent(RequestChangedEvent.Type.CREATED, request(1, 0), HOTEL_ID, GROUP_ID, null, null));
+		// Moved from HOTEL_ID to OTHER_HOTEL_ID: the old hotel sees it disappear.
+		service.publish(new RequestChangedEvent(
+				RequestChangedEvent.Type.UPDATED, request(1, 1), OTHER_HOTEL_ID, null, HOTEL_ID, GROUP_ID));
+
+		await().untilAsserted(() -> {
+			assertThat(hotelStaff.names()).containsExactly(
+					RequestSseService.SNAPSHOT_EVENT, RequestSseService.CREATED_EVENT, RequestSseService.DELETED_EVENT);
+			assertThat(groupAdmin.names()).containsExactly(
+					RequestSseService.SNAPSHOT_EVENT, RequestSseService.CREATED_EVENT, RequestSseService.DELETED_EVENT);
+			assertThat(otherStaff.names()).containsExactly(
+					RequestSseService.SNAPSHOT_EVENT, RequestSseService.UPDATED_EVENT);
+		});
+	}
+
+	@Test
+	void unknownLastEventIdFallsBackToASnapshot() {
+		RequestSseService service = service(16, 16, Duration.ZERO);
+		service.publish(created(1, HOTEL_ID));
+
+		FakeEmitter client = register(service, superadmin(), "previous-process-7");
+
+		await().untilAsserted(() -> assertThat(client.names()).containsExactly(RequestSseService.SNAPSHOT_EVENT));
+		assertThat(snapshotLoads).hasValue(1);
+	}
+
+	@Test
+	void clientWhoseQueueOverflowsIsEvicted() {
+		RequestSseService service = service(2, 2, Duration.ZERO);
+		CountDownLatch release = new CountDownLatch(1);
+		FakeEmitter slow = register(service, superadmin(), null, release);
+		FakeEmitter fast = register(service, staff(OTHER_HOTEL_ID), null);
+		await().untilAsserted(() -> assertThat(slow.sending).isTrue());
+
+		for (long id = 1; id <= 3; id++) {
+			service.publish(created(id, HOTEL_ID));
+		}
+
+		await().untilAsserted(() -> assertThat(slow.completed).isTrue());
+		assertThat(service.stats()).containsEntry("evictions", 1L);
+		assertThat(service.connectedCount()).isEqualTo(1);
+		assertThat(fast.completed).isFalse();
+		release.countDown();
+		await().during(Duration.ofMillis(100)).untilAsserted(() ->
+				assertThat(slow.names()).containsExactly(RequestSseService.SNAPSHOT_EVENT));
+	}
+
+	@Test
+	void changesWithinTheCoalesceWindowAreMergedIntoOneWrite() {
+		RequestSseService service = service(16, 16, Duration.ofMillis(200));
+		FakeEmitter client = register(service, superadmin(), null);
+		await().untilAsserted(() -> assertThat(client.frames).hasSize(1));
+
+		service.publish(created(1, HOTEL_ID));
+		service.publish(updated(1, 1, HOTEL_ID));
+		service.publish(created(2, HOTEL_ID));
+		service.publish(new RequestChangedEvent(RequestChangedEvent.Type.DELETED, request(2, 0), HOTEL_ID, null, null, null));
+		service.publish(updated(3, 4, HOTEL_ID));
+		service.publish(updated(3, 5, HOTEL_ID));
+
+		await().untilAsserted(() -> assertThat(client.frames).hasSize(2));
+		List<Event> deltas = client.events().subList(1, client.events().size());
+		assertThat(deltas).extracting(Event::name)
+				.containsExactly(RequestSseService.CREATED_EVENT, RequestSseService.UPDATED_EVENT);
+		assertThat(deltas).extracting(RequestSseServiceTests::requestKey).containsExactly(key(1, 1), key(3, 5));
+	}
+
+	@Test
+	void resumePastTheQueueCapFallsBackToASnapshot() {
+		RequestSseService service = service(8, 4, Duration.ZERO);
+		FakeEmitter bystander = register(service, staff(OTHER_HOTEL_ID), null);
+		await().untilAsserted(() -> assertThat(bystander.events()).hasSize(1));
+		String lastEventId = bystander.events().get(0).id();
+
+		for (long id = 1; id <= 6; id++) {
+			service.publish(created(id, HOTEL_ID));
+		}
+		snapshotLoads.set(0);
+		FakeEmitter resumed = register(service, superadmin(), lastEventId);
+
+		await().untilAsserted(() -> assertThat(resumed.names()).containsExactly(RequestSseService.SNAPSHOT_EVENT));
+		assertThat(snapshotLoads).hasValue(1);
+		assertThat(resumed.completed).isFalse();
+	}
+
+	@Test
+	void resumeBelowTheQueueCapReplaysOnlyTheMissedEvents() {
+		RequestSseService service = service(4, 4, Duration.ZERO);
+		FakeEmitter bystander = register(service, staff(OTHER_HOTEL_ID), null);
+		await().untilAsserted(() -> assertThat(bystander.events()).hasSize(1));
+		String lastEventId = bystander.events().get(0).id();
+
+		for (long id = 1; id <= 3; id++) {
+			service.publish(created(id, HOTEL_ID));
+		}
+		snapshotLoads.set(0);
+		FakeEmitter resumed = register(service, superadmin(), lastEventId);
+
+		await().untilAsserted(() -> assertThat(resumed.names()).containsExactly(
+				RequestSseService.CREATED_EVENT, RequestSseService.CREATED_EVENT, RequestSseService.CREATED_EVENT));
+		assertThat(snapshotLoads).hasValue(0);
+	}
+
+	private RequestSseService service(int replayBufferSize, int maxQueuedEvents, Duration coalesceWindow) {
+		OrkaSseProperties properties = new OrkaSseProperties();
+		properties.setReplayBufferSize(replayBufferSize);
+		properties.setMaxQueuedEvents(maxQueuedEvents);
+		properties.setCoalesceWindow(coalesceWindow);
+		properties.setSenderThreads(2);
+		return new RequestSseService(new AccessScopeService(), new ObjectMapper(), properties, () -> {
+			FakeEmitter emitter = new FakeEmitter();
+			emitter.gate = nextGate;
+			nextGate = null;
+			emitters.add(emitter);
+			return emitter;
+		});
+	}
+
+	private FakeEmitter register(RequestSseService service, AppUser user, String lastEventId) {
+		return register(service, user, lastEventId, null);
+	}
+
+	private FakeEmitter register(RequestSseService service, AppUser user, String lastEventId, CountDownLatch gate) {
+		nextGate = gate;
+		service.register(user, lastEventId, scope -> {
+			snapshotLoads.incrementAndGet();
+			return List.of();
+		});
+		return emitters.get(emitters.size() - 1);
+	}
+
+	private static long sequence(Event event) {
+		return Long.parseLong(event.id().substring(event.id().lastIndexOf('-') + 1));
+	}
+
+	/** "id@version" of the request carried by a delta. */
+	private static String requestKey(Event event) {
+		JsonNode request = new ObjectMapper().readTree(event.data());
+		return key(request.get("id").asLong(), request.get("version").asLong());
+	}
+
+	private static String key(long id, long version) {
+		return id + "@" + version;
+	}
+
+	private static AppUser superadmin() {
+		AppUser user = new AppUser();
+		user.setId(1L);
+		user.setAccessRole(AccessRole.SUPERADMIN);
+		return user;
+	}
+
+	private static AppUser groupAdmin(long groupId) {
+		HotelGroup group = new HotelGroup();
+		group.setId(groupId);
+		AppUser user = new AppUser();
+		user.setId(200L + groupId);
+		user.setAccessRole(AccessRole.HOTEL_GROUP_ADMIN);
+		user.setAssignedHotelGroup(group);
+		return user;
+	}
+
+	private static AppUser staff(long hotelId) {
+		Hotel hotel = new Hotel();
+		hotel.setId(hotelId);
+		AppUser user = new AppUser();
+		user.setId(100L + hotelId);
+		user.setAccessRole(AccessRole.STAFF);
+		user.setAssignedHotel(hotel);
+		return user;
+	}
+
+	private static RequestChangedEvent created(long requestId, long hotelId) {
+		return new RequestChangedEvent(RequestChangedEvent.Type.CREATED, request(requestId, 0L), hotelId, null, null, null);
+	}
+
+	private static RequestChangedEvent updated(long requestId, long version, long hotelId) {
+		return new RequestChangedEvent(RequestChangedEvent.Type.UPDATED, request(requestId, version), hotelId, null, null, null);
+	}
+
+	private static RequestDto request(long id, long version) {
+		RequestDto request = new RequestDto();
+		request.setId(id);
+		request.setVersion(version);
+		request.setStatus(RequestStatus.NEW);
+		return request;
+	}
+
+	/** Records every frame instead of writing to a response. */
+	static final class FakeEmitter extends SseEmitter {
+
+		private final List<String> frames = new CopyOnWriteArrayList<>();
+		private volatile boolean completed;
+		/** When set, the first send blocks until it is released, like a stalled client. */
+		private volatile CountDownLatch gate;
+		private volatile boolean sending;
+
+		FakeEmitter() {
+			super(0L);
+		}
+
+		@Override
+		public void send(Set<ResponseBodyEmitter.DataWithMediaType> items) {
+			sending = true;
+			CountDownLatch current = gate;
+			if (current != null) {
+				try {
+					current.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			StringBuilder frame = new StringBuilder();
+			for (ResponseBodyEmitter.DataWithMediaType item : items) {
+				Object data = item.getData();
+				frame.append(data instanceof byte[] bytes ? new String(bytes, StandardCharsets.UTF_8) : data);
+			}
+			frames.add(frame.toString());
+		}
+
+		@Override
+		public void complete() {
+			completed = true;
+		}
+
+		List<Event> events() {
+			List<Event> events = new ArrayList<>();
+			for (String frame : frames) {
+				String id = null;
+				String name = null;
+				for (String line : frame.split("\n")) {
+					if (line.startsWith("id:")) {
+						id = line.substring(3);
+					} else if (line.startsWith("event:")) {
+						name = line.substring(6);
+					} else if (line.startsWith("data:")) {
+						events.add(new Event(id, name, line.substring(5)));
+					}
+				}
+			}
+			return events;
+		}
+
+		List<String> names() {
+			return events().stream().map(Event::name).toList();
+		}
+	}
+
+	record Event(String id, String name, String data) {}
+}